@@ -2,17 +2,30 @@ package cn.i7mc.minepal;
 
 import cn.i7mc.minepal.ai.manager.MythicMobsPetAIManager;
 import cn.i7mc.minepal.ai.manager.PetAIManager;
+import cn.i7mc.minepal.ai.manager.TargetArbiter;
+import cn.i7mc.minepal.ai.manager.PetAIDriver;
 import cn.i7mc.minepal.command.handler.CommandHandler;
 import cn.i7mc.minepal.listeners.PetLifecycleListener;
 import cn.i7mc.minepal.listeners.PetProtectionListener;
 import cn.i7mc.minepal.listeners.OwnerCombatListener;
-import cn.i7mc.minepal.listeners.EntityDamageListener;
+import cn.i7mc.minepal.listeners.DamageEventDispatcher;
+import cn.i7mc.minepal.pet.control.ImmunityPolicyRegistry;
+import cn.i7mc.minepal.pet.control.PetDespawner;
+import cn.i7mc.minepal.pet.control.PetEntityIndex;
+import cn.i7mc.minepal.pet.control.PetHotReloader;
 import cn.i7mc.minepal.pet.control.PetManager;
+import cn.i7mc.minepal.pet.control.PetNameUpdater;
+import cn.i7mc.minepal.pet.control.PetOrphanSweeper;
+import cn.i7mc.minepal.pet.control.PetSpawnQueue;
+import cn.i7mc.minepal.pet.control.PetTeleporter;
+import cn.i7mc.minepal.pet.control.PetWorldTransfer;
+import cn.i7mc.minepal.pet.control.PetRegistry;
+import cn.i7mc.minepal.storage.PetStorage;
 import cn.i7mc.minepal.utils.ConfigManager;
 import cn.i7mc.minepal.utils.MessageManager;
 import cn.i7mc.minepal.utils.PetUtils;
+import cn.i7mc.minepal.utils.PlayerNotifier;
 import cn.i7mc.minepal.utils.EntityUtils;
-import cn.i7mc.minepal.utils.DamageUtils;
 import io.lumine.mythic.bukkit.events.MythicReloadedEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -24,14 +37,28 @@ import org.bukkit.plugin.java.JavaPlugin;
 public final class MinePal extends JavaPlugin implements Listener {
     private ConfigManager configManager;
     private MessageManager messageManager;
+    private PlayerNotifier notifier;
     private PetUtils petUtils;
     private PetAIManager aiManager;
+    private PetAIDriver petAIDriver;
+    private TargetArbiter targetArbiter;
+    private ImmunityPolicyRegistry immunityPolicies;
     private PetManager petManager;
+    private PetHotReloader hotReloader;
+    private PetNameUpdater nameUpdater;
+    private PetOrphanSweeper orphanSweeper;
+    private PetDespawner petDespawner;
+    private PetSpawnQueue spawnQueue;
+    private PetWorldTransfer worldTransfer;
+    private PetTeleporter petTeleporter;
+    private PetStorage petStorage;
+    private PetEntityIndex petEntityIndex;
+    private PetRegistry petRegistry;
     private CommandHandler commandHandler;
     private PetProtectionListener protectionListener;
     private PetLifecycleListener lifecycleListener;
     private OwnerCombatListener combatListener;
-    private DamageUtils damageUtils;
+    private DamageEventDispatcher damageDispatcher;
     private ConsoleCommandSender console;
 
     @Override
@@ -46,15 +73,29 @@ public final class MinePal extends JavaPlugin implements Listener {
         // 初始化消息管理器
         messageManager = new MessageManager(this, configManager);
         
+        // 初始化玩家通知通道
+        notifier = new PlayerNotifier(this);
+        
+        // 初始化宠物注册表
+        petRegistry = new PetRegistry();
+        
+        // 初始化宠物免疫策略，MythicMobs加载完成后会再次编译模板策略
+        immunityPolicies = new ImmunityPolicyRegistry(this);
+        immunityPolicies.reload();
+        
+        // 初始化宠物目标仲裁器
+        targetArbiter = new TargetArbiter(this);
+        
         // 初始化宠物工具类
         petUtils = new PetUtils(this);
         
+        // 初始化宠物实体索引
+        petEntityIndex = new PetEntityIndex(this);
+        Bukkit.getPluginManager().registerEvents(petEntityIndex, this);
+        
         // 初始化EntityUtils静态工具类
         EntityUtils.init(this);
         
-        // 初始化DamageUtils
-        damageUtils = new DamageUtils(this);
-        
         // 初始化战斗监听器
         combatListener = new OwnerCombatListener(this);
         // 注册战斗监听器
@@ -64,11 +105,45 @@ public final class MinePal extends JavaPlugin implements Listener {
         petManager = new PetManager(this, null, petUtils);
         
         // 初始化AI管理器
-        aiManager = new MythicMobsPetAIManager(this, petManager, combatListener);
+        MythicMobsPetAIManager mythicAIManager = new MythicMobsPetAIManager(this, petManager, combatListener);
+        aiManager = mythicAIManager;
+        
+        // 初始化并启动AI驱动器
+        petAIDriver = new PetAIDriver(this, mythicAIManager);
+        petAIDriver.start();
         
         // 更新宠物管理器的AI管理器引用
         petManager.setAIManager(aiManager);
         
+        // 初始化宠物批量移除器
+        petDespawner = new PetDespawner(this, petManager);
+        
+        // 初始化宠物召唤队列
+        spawnQueue = new PetSpawnQueue(this, petManager);
+        
+        // 初始化宠物传送服务
+        petTeleporter = new PetTeleporter(this);
+        
+        // 初始化宠物跨世界转移
+        worldTransfer = new PetWorldTransfer(this, petManager);
+        
+        // 初始化宠物热重载器
+        hotReloader = new PetHotReloader(this, petManager);
+        
+        // 初始化并启动宠物动态名称更新器
+        nameUpdater = new PetNameUpdater(this, petManager);
+        nameUpdater.start();
+        
+        // 初始化宠物数据存储
+        petStorage = new PetStorage(this);
+        Bukkit.getPluginManager().registerEvents(petStorage, this);
+        Bukkit.getPluginManager().registerEvents(petStorage.getJournal(), this);
+        petStorage.start();
+        
+        // 初始化残留宠物清扫器
+        orphanSweeper = new PetOrphanSweeper(this);
+        Bukkit.getPluginManager().registerEvents(orphanSweeper, this);
+        
         // 注册事件监听器，监听MythicMobs重载事件
         Bukkit.getPluginManager().registerEvents(this, this);
         
@@ -83,28 +158,35 @@ public final class MinePal extends JavaPlugin implements Listener {
         
         // 使用延迟任务确保MythicMobs完全加载
         Bukkit.getScheduler().runTaskLater(this, () -> {
-            // 清理可能存在的无主宠物（服务器崩溃后残留的宠物）
-            String cleanupMessage = messageManager.getMessage("plugin.pet-cleanup");
-            console.sendMessage(ChatColor.translateAlternateColorCodes('&', cleanupMessage));
-            
-            petManager.removeAllPets();
+            // 回收宠物实体日志中仍标记为存活的宠物（服务器崩溃后残留的宠物），未加载的在区块加载时回收
+            petStorage.getJournal().recoverLoaded();
             
-            String completeMessage = messageManager.getMessage("plugin.pet-cleanup-complete");
-            console.sendMessage(ChatColor.translateAlternateColorCodes('&', completeMessage));
+            // 分批检查已加载区块中没有日志记录的残留宠物
+            orphanSweeper.sweepLoaded();
             
             // 初始化AI系统
             aiManager.initialize();
             
+            // 编译各宠物模板的免疫策略
+            immunityPolicies.reload();
+            
+            // 记录模板指纹，作为热重载的比较基准
+            hotReloader.captureTemplates();
+            
             // 注册宠物生命周期监听器
             lifecycleListener = new PetLifecycleListener(this);
             Bukkit.getPluginManager().registerEvents(lifecycleListener, this);
             
             // 更新命令处理器中的宠物管理器引用
             updateCommandHandler();
+            
+            // 恢复在线玩家保存的宠物
+            petStorage.restoreOnline();
         }, 40L); // 2秒后执行
         
-        // 注册事件监听器
-        getServer().getPluginManager().registerEvents(new EntityDamageListener(this), this);
+        // 注册伤害事件分发器
+        damageDispatcher = new DamageEventDispatcher(this);
+        getServer().getPluginManager().registerEvents(damageDispatcher, this);
         
         // 插件启动逻辑
         String enableMessage = messageManager.getMessage("plugin.enable");
@@ -112,24 +194,18 @@ public final class MinePal extends JavaPlugin implements Listener {
     }
     
     /**
-     * 监听MythicMobs重载事件
+     * 监听MythicMobs重载事件，统一重新初始化AI系统并处理受影响的宠物
      */
     @EventHandler
     public void onMythicReload(MythicReloadedEvent event) {
-        // 重载配置
-        configManager.reloadAllConfigs();
-        
-        // 更新消息
-        messageManager.refreshMessages();
-        
         // 重新初始化AI系统
         if (aiManager != null) {
             aiManager.initialize();
         }
         
-        // 清除所有宠物
-        if (petManager != null) {
-            petManager.removeAllPets();
+        // 重载配置并只处理受影响的宠物
+        if (hotReloader != null) {
+            hotReloader.reload();
         }
     }
     
@@ -153,15 +229,63 @@ public final class MinePal extends JavaPlugin implements Listener {
                 return;
             }
             
+            // 停止AI驱动器
+            if (petAIDriver != null) {
+                petAIDriver.stop();
+            }
+            
+            // 停止玩家通知通道
+            if (notifier != null) {
+                notifier.stop();
+            }
+            
+            // 停止宠物名称更新器
+            if (nameUpdater != null) {
+                nameUpdater.stop();
+            }
+            
+            // 停止进行中的宠物传送
+            if (petTeleporter != null) {
+                petTeleporter.stop();
+            }
+            
+            // 停止等待中的跨世界转移
+            if (worldTransfer != null) {
+                worldTransfer.stop();
+            }
+            
+            // 取消尚未放行的召唤请求
+            if (spawnQueue != null) {
+                spawnQueue.stop();
+            }
+            
+            // 停止残留宠物清扫
+            if (orphanSweeper != null) {
+                orphanSweeper.stop();
+            }
+            
+            // 停止未完成的热重载
+            if (hotReloader != null) {
+                hotReloader.stop();
+            }
+            
+            // 保存所有宠物数据，必须在移除宠物实体之前执行
+            if (petStorage != null) {
+                petStorage.saveOnline();
+            }
+            
             // 优先清理所有宠物实体（确保在服务器关闭时执行）
             if (petManager != null) {
                 String cleanupMessage = messageManager.getMessage("plugin.pet-cleanup");
                 console.sendMessage(ChatColor.translateAlternateColorCodes('&', cleanupMessage));
                 
-                petManager.removeAllPets();
-                
-                String completeMessage = messageManager.getMessage("plugin.pet-cleanup-complete");
-                console.sendMessage(ChatColor.translateAlternateColorCodes('&', completeMessage));
+                // 关闭时不能等待后续tick，一次性移除所有宠物；残留实体由日志和清扫器在下次启动时回收
+                petDespawner.despawnAllNow();
+            }
+            
+            // 宠物移除记录写入日志后关闭存储
+            if (petStorage != null) {
+                petStorage.shutdown();
             }
             
             // 插件关闭逻辑
@@ -189,6 +313,14 @@ public final class MinePal extends JavaPlugin implements Listener {
         return messageManager;
     }
     
+    /**
+     * 获取玩家通知通道
+     * @return 玩家通知通道实例
+     */
+    public PlayerNotifier getNotifier() {
+        return notifier;
+    }
+    
     /**
      * 获取宠物工具类
      * @return 宠物工具类实例
@@ -205,6 +337,30 @@ public final class MinePal extends JavaPlugin implements Listener {
         return aiManager;
     }
     
+    /**
+     * 获取AI驱动器
+     * @return AI驱动器实例
+     */
+    public PetAIDriver getPetAIDriver() {
+        return petAIDriver;
+    }
+    
+    /**
+     * 获取宠物目标仲裁器
+     * @return 目标仲裁器实例
+     */
+    public TargetArbiter getTargetArbiter() {
+        return targetArbiter;
+    }
+    
+    /**
+     * 获取宠物免疫策略注册表
+     * @return 免疫策略注册表实例
+     */
+    public ImmunityPolicyRegistry getImmunityPolicies() {
+        return immunityPolicies;
+    }
+    
     /**
      * 获取宠物管理器
      * @return 宠物管理器实例
@@ -213,6 +369,78 @@ public final class MinePal extends JavaPlugin implements Listener {
         return petManager;
     }
     
+    /**
+     * 获取宠物热重载器
+     * @return 宠物热重载器实例
+     */
+    public PetHotReloader getHotReloader() {
+        return hotReloader;
+    }
+    
+    /**
+     * 获取残留宠物清扫器
+     * @return 残留宠物清扫器实例
+     */
+    public PetOrphanSweeper getOrphanSweeper() {
+        return orphanSweeper;
+    }
+    
+    /**
+     * 获取宠物批量移除器
+     * @return 宠物批量移除器实例
+     */
+    public PetDespawner getPetDespawner() {
+        return petDespawner;
+    }
+    
+    /**
+     * 获取宠物召唤队列
+     * @return 宠物召唤队列实例
+     */
+    public PetSpawnQueue getSpawnQueue() {
+        return spawnQueue;
+    }
+    
+    /**
+     * 获取宠物跨世界转移
+     * @return 宠物跨世界转移实例
+     */
+    public PetWorldTransfer getWorldTransfer() {
+        return worldTransfer;
+    }
+    
+    /**
+     * 获取宠物传送服务
+     * @return 宠物传送服务实例
+     */
+    public PetTeleporter getPetTeleporter() {
+        return petTeleporter;
+    }
+    
+    /**
+     * 获取宠物数据存储
+     * @return 宠物数据存储实例
+     */
+    public PetStorage getPetStorage() {
+        return petStorage;
+    }
+    
+    /**
+     * 获取宠物注册表
+     * @return 宠物注册表实例
+     */
+    public PetRegistry getPetRegistry() {
+        return petRegistry;
+    }
+    
+    /**
+     * 获取宠物实体索引
+     * @return 宠物实体索引实例
+     */
+    public PetEntityIndex getPetEntityIndex() {
+        return petEntityIndex;
+    }
+    
     /**
      * 获取战斗状态监听器
      * @return 战斗状态监听器实例
@@ -228,12 +456,4 @@ public final class MinePal extends JavaPlugin implements Listener {
     public OwnerCombatListener getOwnerCombatListener() {
         return combatListener;
     }
-    
-    /**
-     * 获取伤害工具类
-     * @return 伤害工具类
-     */
-    public DamageUtils getDamageUtils() {
-        return damageUtils;
-    }
 } 
\ No newline at end of file
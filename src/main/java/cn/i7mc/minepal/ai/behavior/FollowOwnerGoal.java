@@ -1,5 +1,6 @@
 package cn.i7mc.minepal.ai.behavior;
 
+import cn.i7mc.minepal.ai.manager.PetGoalHelper;
 import io.lumine.mythic.api.adapters.AbstractEntity;
 import io.lumine.mythic.api.adapters.AbstractLocation;
 import io.lumine.mythic.api.config.MythicLineConfig;
@@ -19,6 +20,7 @@ import java.lang.ref.WeakReference;
  */
 @MythicAIGoal(name="followOwner", aliases={"followowner"}, description="跟随宠物主人的AI行为")
 public class FollowOwnerGoal extends Pathfinder implements PathfindingGoal {
+    private final PetGoalHelper helper;
     private transient WeakReference<Player> owner = null;
     private double followRangeSq;
     private double minRangeSq;
@@ -29,6 +31,7 @@ public class FollowOwnerGoal extends Pathfinder implements PathfindingGoal {
     public FollowOwnerGoal(AbstractEntity entity, String line, MythicLineConfig mlc) {
         super(entity, line, mlc);
         this.goalType = Pathfinder.GoalType.MOVE_LOOK;
+        this.helper = new PetGoalHelper();
         
         // 读取配置参数
         // 开始跟随的距离
@@ -71,10 +74,10 @@ public class FollowOwnerGoal extends Pathfinder implements PathfindingGoal {
         Player ownerPlayer = this.owner.get();
         AbstractLocation ownerLocation = BukkitAdapter.adapt(ownerPlayer.getLocation());
         
-        // 如果主人在不同的世界，直接传送
+        // 如果主人在不同的世界，交给跨世界转移处理，不在AI中直接传送
         if (!ownerLocation.getWorld().getUniqueId().equals(this.entity.getLocation().getWorld().getUniqueId())) {
-            this.entity.teleport(ownerLocation);
-            return true;
+            helper.requestTransfer(this.entity, ownerPlayer, ownerLocation);
+            return false;
         }
         
         // 计算与主人的距离
@@ -109,15 +112,15 @@ public class FollowOwnerGoal extends Pathfinder implements PathfindingGoal {
         
         // 处理不同世界的情况
         if (!ownerLocation.getWorld().getUniqueId().equals(this.entity.getLocation().getWorld().getUniqueId())) {
-            this.entity.teleport(ownerLocation);
+            helper.requestTransfer(this.entity, ownerPlayer, ownerLocation);
             return;
         }
         
         double distanceSq = this.entity.getLocation().distanceSquared(ownerLocation);
         
-        // 如果距离太远，直接传送
+        // 如果距离太远，传送到主人身边，目标区块未加载时先异步加载
         if (distanceSq > this.teleportDistanceSq) {
-            this.entity.teleport(ownerLocation);
+            helper.teleportToOwner(this.entity, ownerPlayer, ownerLocation);
             return;
         }
         
@@ -137,9 +140,9 @@ public class FollowOwnerGoal extends Pathfinder implements PathfindingGoal {
         Player ownerPlayer = this.owner.get();
         AbstractLocation ownerLocation = BukkitAdapter.adapt(ownerPlayer.getLocation());
         
-        // 如果在不同世界，不结束AI
+        // 如果在不同世界，结束AI，等待跨世界转移完成
         if (!ownerLocation.getWorld().getUniqueId().equals(this.entity.getLocation().getWorld().getUniqueId())) {
-            return false;
+            return true;
         }
         
         // 如果距离小于最小距离，结束AI
@@ -5,11 +5,12 @@ import cn.i7mc.minepal.ai.behavior.FollowOwnerGoal;
 import cn.i7mc.minepal.ai.target.DamageOwnerGoal;
 import cn.i7mc.minepal.ai.target.OwnerTargetGoal;
 import cn.i7mc.minepal.listeners.OwnerCombatListener;
+import cn.i7mc.minepal.pet.control.PetAIState;
 import cn.i7mc.minepal.pet.control.PetManager;
+import cn.i7mc.minepal.pet.control.PetRecord;
+import cn.i7mc.minepal.pet.control.TargetPriority;
 import io.lumine.mythic.api.adapters.AbstractEntity;
 import io.lumine.mythic.bukkit.MythicBukkit;
-import io.lumine.mythic.bukkit.BukkitAdapter;
-import io.lumine.mythic.bukkit.events.MythicReloadedEvent;
 import io.lumine.mythic.core.mobs.ActiveMob;
 import io.lumine.mythic.core.mobs.ai.PathfinderAdapter;
 import io.lumine.mythic.core.mobs.ai.PathfindingGoal;
@@ -18,9 +19,6 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Mob;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -30,13 +28,10 @@ import java.util.UUID;
 /**
  * MythicMobs的AI管理器实现
  */
-public class MythicMobsPetAIManager implements PetAIManager, Listener {
+public class MythicMobsPetAIManager implements PetAIManager {
     private final MinePal plugin;
     private final Map<String, Class<?>> registeredGoals = new HashMap<>();
     private final Map<String, Class<?>> registeredAdapters = new HashMap<>();
-    private final Map<UUID, BukkitTask> petTaskMap = new HashMap<>();
-    private final Map<UUID, Boolean> ownerCombatMap = new HashMap<>();
-    private final Map<UUID, org.bukkit.entity.LivingEntity> ownerTargetMap = new HashMap<>();
     private final PetManager petManager;
     private final OwnerCombatListener ownerCombatListener;
     
@@ -44,17 +39,6 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
         this.plugin = plugin;
         this.petManager = petManager;
         this.ownerCombatListener = ownerCombatListener;
-        // 注册自身作为事件监听器
-        Bukkit.getPluginManager().registerEvents(this, plugin);
-    }
-    
-    /**
-     * 监听MythicMobs重载事件
-     */
-    @EventHandler
-    public void onMythicReloaded(MythicReloadedEvent event) {
-        // 延迟一点时间再注册，确保MythicMobs完全重载
-        Bukkit.getScheduler().runTaskLater(plugin, this::initialize, 5L);
     }
     
     @Override
@@ -90,6 +74,15 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
             // 使用MythicMobs的API设置宠物AI
             AbstractEntity entity = mythicMob.getEntity();
             
+            // 交由AI驱动器周期性检查宠物目标
+            PetRecord record = plugin.getPetRegistry().get(entity.getUniqueId());
+            if (record != null) {
+                record.setAIState(PetAIState.IDLE);
+                if (plugin.getPetAIDriver() != null) {
+                    plugin.getPetAIDriver().schedule(record.getPetUUID());
+                }
+            }
+            
             // 强制刷新AI - 尝试重新触发宠物的AI
             try {
                 org.bukkit.entity.Entity bukkitEntity = entity.getBukkitEntity();
@@ -101,7 +94,7 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
                     // 清除当前目标
                     if (livingEntity instanceof org.bukkit.entity.Mob) {
                         org.bukkit.entity.Mob mobEntity = (org.bukkit.entity.Mob) livingEntity;
-                        mobEntity.setTarget(null);
+                        plugin.getTargetArbiter().clear(mobEntity);
                     }
                     
                     // 立即重新启用AI并设置目标
@@ -122,7 +115,7 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
                                 if (attackerEntity instanceof LivingEntity &&
                                     !attackerEntity.getUniqueId().equals(mobEntity.getUniqueId())) {
                                     // 优先设置攻击主人的实体为宠物目标
-                                    mobEntity.setTarget((LivingEntity) attackerEntity);
+                                    plugin.getTargetArbiter().request(mobEntity, (LivingEntity) attackerEntity, TargetPriority.PROTECT_OWNER);
                                     return; // 设置完攻击者为目标后直接返回
                                 }
                             }
@@ -140,12 +133,7 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
                         
                         // 如果主人正在战斗且有目标，设置宠物的目标
                         if (isOwnerInCombat && ownerTarget != null) {
-                            // 检查宠物当前的目标与主人目标是否一致
-                            if (mobEntity.getTarget() == null || 
-                                !mobEntity.getTarget().getUniqueId().equals(ownerTarget.getUniqueId())) {
-                                // 目标不同，设置宠物的目标
-                                mobEntity.setTarget(ownerTarget);
-                            }
+                            plugin.getTargetArbiter().request(mobEntity, ownerTarget, TargetPriority.ASSIST_OWNER);
                         }
                     }
                 }
@@ -153,112 +141,6 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
                 // 移除调试日志
             }
             
-            // 注册周期性任务，每2秒检查一次宠物目标
-            final UUID petUUID = entity.getUniqueId();
-            
-            // 如果已经有任务，先取消
-            if (petTaskMap.containsKey(petUUID)) {
-                petTaskMap.get(petUUID).cancel();
-            }
-            
-            // 创建新任务
-            BukkitTask task = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                // 检查宠物是否还存在
-                Optional<ActiveMob> petMob = MythicBukkit.inst().getMobManager().getActiveMob(petUUID);
-                if (!petMob.isPresent()) {
-                    petTaskMap.remove(petUUID).cancel();
-                    return;
-                }
-                
-                // 检查主人是否还在线
-                if (!owner.isOnline()) {
-                    petTaskMap.remove(petUUID).cancel();
-                    return;
-                }
-                
-                // 获取宠物实体
-                org.bukkit.entity.Entity bukkitEntity = petMob.get().getEntity().getBukkitEntity();
-                if (!(bukkitEntity instanceof org.bukkit.entity.Mob)) {
-                    return;
-                }
-                
-                org.bukkit.entity.Mob mobEntity = (org.bukkit.entity.Mob) bukkitEntity;
-                
-                // 检查主人的战斗状态
-                boolean isOwnerInCombat = plugin.getCombatListener().isPlayerInCombat(owner.getUniqueId());
-                org.bukkit.entity.LivingEntity ownerTarget = null;
-                
-                if (isOwnerInCombat) {
-                    // 首先检查是否有攻击主人的实体
-                    UUID attackerUUID = plugin.getCombatListener().getPlayerAttacker(owner.getUniqueId());
-                    if (attackerUUID != null) {
-                        Entity attackerEntity = Bukkit.getEntity(attackerUUID);
-                        if (attackerEntity instanceof LivingEntity &&
-                            !attackerEntity.getUniqueId().equals(mobEntity.getUniqueId())) {
-                            // 优先设置攻击主人的实体为宠物目标
-                            mobEntity.setTarget((LivingEntity) attackerEntity);
-                            
-                            // 记录宠物是否在战斗中和宠物当前目标
-                            ownerCombatMap.put(petUUID, true);
-                            ownerTargetMap.put(petUUID, (LivingEntity) attackerEntity);
-                            return; // 直接返回，不执行后续代码
-                        }
-                    }
-                    
-                    // 如果没有攻击主人的实体，则检查主人攻击的目标
-                    UUID targetUUID = plugin.getCombatListener().getPlayerTarget(owner.getUniqueId());
-                    if (targetUUID != null) {
-                        Entity targetEntity = Bukkit.getEntity(targetUUID);
-                        if (targetEntity instanceof LivingEntity && 
-                            !targetEntity.getUniqueId().equals(mobEntity.getUniqueId())) {
-                            ownerTarget = (LivingEntity) targetEntity;
-                        }
-                    }
-                }
-                
-                // 如果主人正在战斗且有目标，设置宠物的目标
-                if (isOwnerInCombat && ownerTarget != null) {
-                    // 检查宠物当前的目标与主人目标是否一致
-                    if (mobEntity.getTarget() == null || 
-                        !mobEntity.getTarget().getUniqueId().equals(ownerTarget.getUniqueId())) {
-                        // 目标不同，设置宠物的目标
-                        mobEntity.setTarget(ownerTarget);
-                    }
-                } else {
-                    // 如果主人不在战斗中，但宠物有目标，尝试寻找附近的目标
-                    if (mobEntity.getTarget() != null) {
-                        // 检查宠物当前目标是否有效
-                        LivingEntity currentTarget = mobEntity.getTarget();
-                        if (currentTarget.isDead() || !currentTarget.isValid()) {
-                            mobEntity.setTarget(null);
-                        } else {
-                            // 检查宠物是否与目标相距太远
-                            double distance = mobEntity.getLocation().distance(currentTarget.getLocation());
-                            if (distance > 30.0) {  // 如果距离超过30格，清除目标
-                                mobEntity.setTarget(null);
-                            }
-                        }
-                    } else {
-                        // 检查附近是否有潜在目标
-                        // findNearbyTarget(owner, mobEntity); // 移除这个调用，让宠物不再主动攻击怪物
-                    }
-                }
-                
-                // 记录宠物是否在战斗中
-                ownerCombatMap.put(petUUID, isOwnerInCombat);
-                
-                // 记录宠物当前目标
-                if (mobEntity.getTarget() != null) {
-                    ownerTargetMap.put(petUUID, mobEntity.getTarget());
-                } else {
-                    ownerTargetMap.remove(petUUID);
-                }
-                
-            }, 40L, 40L); // 2秒检查一次
-            
-            // 将任务存储起来
-            petTaskMap.put(petUUID, task);
-            
         } catch (Exception e) {
             // 移除调试日志
         }
@@ -272,23 +154,21 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
             // 获取宠物UUID
             UUID petUUID = mythicMob.getEntity().getUniqueId();
             
-            // 取消定时任务
-            if (petTaskMap.containsKey(petUUID)) {
-                BukkitTask task = petTaskMap.remove(petUUID);
-                if (task != null) {
-                    task.cancel();
-                }
+            // 停止AI驱动并清除战斗状态记录
+            PetRecord record = plugin.getPetRegistry().get(petUUID);
+            if (record != null) {
+                record.setAIState(PetAIState.INACTIVE);
+                record.setLastTarget(null);
+            }
+            if (plugin.getPetAIDriver() != null) {
+                plugin.getPetAIDriver().unschedule(petUUID);
             }
-            
-            // 清除战斗状态记录
-            ownerCombatMap.remove(petUUID);
-            ownerTargetMap.remove(petUUID);
             
             // 尝试清除宠物的目标
             org.bukkit.entity.Entity bukkitEntity = mythicMob.getEntity().getBukkitEntity();
             if (bukkitEntity instanceof org.bukkit.entity.Mob) {
                 org.bukkit.entity.Mob mobEntity = (org.bukkit.entity.Mob) bukkitEntity;
-                mobEntity.setTarget(null);
+                plugin.getTargetArbiter().clear(mobEntity);
             }
             
         } catch (Exception e) {
@@ -300,51 +180,15 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
     public void updateAI(ActiveMob petMob) {
         if (petMob == null) return;
         
-        // 获取宠物和主人信息
-        AbstractEntity abstractEntity = petMob.getEntity();
+        // 获取宠物主人
         io.lumine.mythic.bukkit.utils.serialize.Optl<UUID> ownerUUID = petMob.getOwner();
         
         // 如果没有主人，不需要更新
         if (!ownerUUID.isPresent()) return;
         
-        // 获取主人
-        Player owner = Bukkit.getPlayer(ownerUUID.get());
-        if (owner == null || !owner.isOnline()) return;
-        
-        // 更新宠物AI
-        org.bukkit.entity.Entity bukkitEntity = abstractEntity.getBukkitEntity();
-        if (!(bukkitEntity instanceof org.bukkit.entity.Mob)) return;
-        
-        org.bukkit.entity.Mob mobEntity = (org.bukkit.entity.Mob) bukkitEntity;
-        
-        // 检查主人的战斗状态
-        boolean isOwnerInCombat = plugin.getCombatListener().isPlayerInCombat(owner.getUniqueId());
-        
-        // 如果主人在战斗中，检查是否需要更新宠物目标
-        if (isOwnerInCombat) {
-            // 首先检查是否有攻击主人的实体
-            UUID attackerUUID = plugin.getCombatListener().getPlayerAttacker(owner.getUniqueId());
-            if (attackerUUID != null) {
-                Entity attackerEntity = Bukkit.getEntity(attackerUUID);
-                if (attackerEntity instanceof LivingEntity) {
-                    // 优先设置攻击主人的实体为宠物目标
-                    mobEntity.setTarget((LivingEntity) attackerEntity);
-                    return;
-                }
-            }
-            
-            // 如果没有找到攻击主人的实体，则检查主人攻击的目标
-            UUID targetUUID = plugin.getCombatListener().getPlayerTarget(owner.getUniqueId());
-            if (targetUUID != null) {
-                Entity targetEntity = Bukkit.getEntity(targetUUID);
-                if (targetEntity instanceof LivingEntity) {
-                    // 设置宠物的目标
-                    mobEntity.setTarget((LivingEntity) targetEntity);
-                }
-            }
-        } else {
-            // 如果主人不在战斗状态，可以考虑清除宠物目标
-            // 这里选择保留目标，让宠物可以继续战斗
+        // 交由AI驱动器在下一个tick统一更新宠物目标
+        if (plugin.getPetAIDriver() != null) {
+            plugin.getPetAIDriver().requestRetarget(ownerUUID.get());
         }
     }
     
@@ -373,6 +217,63 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
         return activeMob.orElse(null);
     }
     
+    /**
+     * 由AI驱动器调用，检查并更新单个宠物的目标
+     * @param record 宠物记录
+     * @param mobEntity 宠物实体
+     * @param context 本轮共享的主人战斗状态
+     */
+    void tickPet(PetRecord record, Mob mobEntity, PetAIDriver.OwnerContext context) {
+        TargetArbiter arbiter = plugin.getTargetArbiter();
+        boolean isOwnerInCombat = context.inCombat;
+        LivingEntity ownerTarget = null;
+        
+        if (isOwnerInCombat) {
+            // 本tick有新的战斗事件时，使用按规则选出的目标，否则优先攻击主人的实体
+            LivingEntity attackerEntity = context.intent != null ? context.intent : context.attacker;
+            if (attackerEntity != null && !attackerEntity.getUniqueId().equals(mobEntity.getUniqueId())) {
+                // 攻击主人的实体为保护优先级，主人攻击的目标为协助优先级，最终是否切换由仲裁器决定
+                boolean protect = context.attacker != null
+                        && context.attacker.getUniqueId().equals(attackerEntity.getUniqueId());
+                arbiter.request(mobEntity, attackerEntity,
+                        protect ? TargetPriority.PROTECT_OWNER : TargetPriority.ASSIST_OWNER);
+                
+                // 记录宠物是否在战斗中
+                record.setAIState(PetAIState.COMBAT);
+                return; // 直接返回，不执行后续代码
+            }
+            
+            // 如果没有攻击主人的实体，则检查主人攻击的目标
+            LivingEntity targetEntity = context.target;
+            if (targetEntity != null && !targetEntity.getUniqueId().equals(mobEntity.getUniqueId())) {
+                ownerTarget = targetEntity;
+            }
+        }
+        
+        // 如果主人正在战斗且有目标，设置宠物的目标
+        if (isOwnerInCombat && ownerTarget != null) {
+            arbiter.request(mobEntity, ownerTarget, TargetPriority.ASSIST_OWNER);
+        } else {
+            // 如果主人不在战斗中，但宠物有目标，检查目标是否仍然有效
+            if (mobEntity.getTarget() != null) {
+                LivingEntity currentTarget = mobEntity.getTarget();
+                if (currentTarget.isDead() || !currentTarget.isValid()
+                        || !currentTarget.getWorld().equals(mobEntity.getWorld())) {
+                    arbiter.clear(mobEntity);
+                } else {
+                    // 检查宠物是否与目标相距太远
+                    double distance = mobEntity.getLocation().distance(currentTarget.getLocation());
+                    if (distance > 30.0) {  // 如果距离超过30格，清除目标
+                        arbiter.clear(mobEntity);
+                    }
+                }
+            }
+        }
+        
+        // 记录宠物是否在战斗中
+        record.setAIState(isOwnerInCombat ? PetAIState.COMBAT : PetAIState.IDLE);
+    }
+    
     /**
      * 获取玩家正在看的实体
      * @param player 玩家
@@ -400,88 +301,6 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
         }
     }
 
-    /**
-     * 周期性检查宠物状态
-     */
-    private void checkPetStatus() {
-        for (Map.Entry<UUID, LivingEntity> entry : petManager.getPets().entrySet()) {
-            LivingEntity pet = entry.getValue();
-            if (pet == null || !pet.isValid() || pet.isDead()) {
-                continue;
-            }
-
-            // 获取宠物主人
-            Player owner = petManager.getPetOwner(pet);
-            if (owner == null || !owner.isOnline()) {
-                continue;
-            }
-
-            // 检查主人是否在战斗状态
-            boolean ownerInCombat = plugin.getCombatListener().isPlayerInCombat(owner.getUniqueId());
-
-            // 获取主人当前目标
-            UUID targetUUID = plugin.getCombatListener().getPlayerTarget(owner.getUniqueId());
-            if (targetUUID != null) {
-                Entity target = Bukkit.getEntity(targetUUID);
-                if (target != null && target.isValid() && !target.isDead()) {
-                    // 设置宠物目标
-                    if (pet instanceof Mob) {
-                        Mob mob = (Mob) pet;
-                        mob.setTarget((LivingEntity) target);
-                    }
-                }
-            } else {
-                // 如果主人没有目标，清除宠物目标
-                if (pet instanceof Mob) {
-                    Mob mob = (Mob) pet;
-                    mob.setTarget(null);
-                }
-            }
-        }
-    }
-
-    /**
-     * 监听玩家死亡事件
-     */
-    @EventHandler
-    public void onPlayerDeath(org.bukkit.event.entity.PlayerDeathEvent event) {
-        Player player = event.getEntity();
-        if (player == null) return;
-
-        // 检查玩家是否有宠物
-        UUID petUUID = plugin.getPetUtils().getPetUUID(player);
-        if (petUUID == null) return;
-
-        // 获取宠物实体
-        Entity pet = null;
-        for (Entity entity : player.getWorld().getEntities()) {
-            if (entity.getUniqueId().equals(petUUID)) {
-                pet = entity;
-                break;
-            }
-        }
-
-        if (pet != null) {
-            // 获取MythicMobs实体
-            AbstractEntity abstractEntity = BukkitAdapter.adapt(pet);
-            ActiveMob activeMob = getMythicMob(abstractEntity);
-
-            if (activeMob != null) {
-                // 移除AI设置
-                removeAI(activeMob);
-                
-                // 使用MythicMobs API移除实体
-                activeMob.remove();
-            } else {
-                // 如果不是MythicMobs实体，直接移除
-                pet.remove();
-            }
-
-            // 注销宠物
-            plugin.getPetUtils().unregisterPet(player);
-        }
-    }
-
     /**
      * 根据宠物UUID设置其目标实体
      * 
@@ -505,11 +324,10 @@ public class MythicMobsPetAIManager implements PetAIManager, Listener {
             return false;
         }
         
-        // 设置目标
+        // 设置目标，由仲裁器决定是否切换
         org.bukkit.entity.Mob mobEntity = (org.bukkit.entity.Mob) bukkitEntity;
         if (target instanceof LivingEntity) {
-            mobEntity.setTarget((LivingEntity) target);
-            return true;
+            return plugin.getTargetArbiter().request(mobEntity, (LivingEntity) target, TargetPriority.ASSIST_OWNER);
         } else {
             return false;
         }
@@ -0,0 +1,334 @@
+package cn.i7mc.minepal.ai.manager;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.listeners.CombatIntent;
+import cn.i7mc.minepal.pet.control.PetAIState;
+import cn.i7mc.minepal.pet.control.PetRecord;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Mob;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 宠物AI驱动器
+ * 使用单个定时任务遍历宠物注册表，替代每个宠物一个定时任务的做法
+ * 宠物按UUID哈希分配到时间轮的相位槽中，每tick只处理一个槽，使AI开销平摊到整个检查周期
+ * 宠物加入或离开时会重新平衡各槽的负载；同一主人的宠物在同一tick内共享主人战斗状态的查询结果
+ * 主人战斗状态变化时由战斗监听器推入重新选择目标队列，在下一个tick统一处理，时间轮轮询仅作为兜底
+ * 同一tick内主人的多个战斗事件合并为一个战斗意图，按配置的选择规则只设置一次目标
+ */
+public class PetAIDriver {
+    private final MinePal plugin;
+    private final MythicMobsPetAIManager aiManager;
+    private BukkitTask task;
+    // 兜底轮询间隔（tick），即时间轮的槽数，配置变化时重建时间轮
+    private int interval;
+
+    // 等待重新选择目标的主人队列
+    private final Set<UUID> retargetQueue = new LinkedHashSet<>();
+
+    // 时间轮：每个槽保存分配到该相位的宠物
+    private final List<Set<UUID>> slots = new ArrayList<>();
+    // 宠物UUID -> 所在槽位
+    private final Map<UUID, Integer> slotOf = new HashMap<>();
+    private int cursor;
+
+    public PetAIDriver(MinePal plugin, MythicMobsPetAIManager aiManager) {
+        this.plugin = plugin;
+        this.aiManager = aiManager;
+        this.interval = plugin.getConfigManager().getSettings().getAiPollInterval();
+        for (int i = 0; i < interval; i++) {
+            slots.add(new LinkedHashSet<>());
+        }
+    }
+
+    /**
+     * 启动AI驱动任务
+     */
+    public void start() {
+        if (task != null) return;
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    /**
+     * 停止AI驱动任务
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (Set<UUID> slot : slots) {
+            slot.clear();
+        }
+        slotOf.clear();
+        retargetQueue.clear();
+    }
+
+    /**
+     * 请求在下一个tick重新选择主人所有宠物的目标
+     * 同一tick内的多次请求只处理一次
+     * @param ownerUUID 主人UUID
+     */
+    public void requestRetarget(UUID ownerUUID) {
+        if (ownerUUID == null || !plugin.getPetRegistry().hasPets(ownerUUID)) return;
+        retargetQueue.add(ownerUUID);
+    }
+
+    /**
+     * 将宠物加入时间轮
+     * 优先使用UUID哈希对应的槽，如果该槽负载明显高于最空闲的槽，则改用最空闲的槽
+     * @param petUUID 宠物UUID
+     */
+    public void schedule(UUID petUUID) {
+        if (petUUID == null || slotOf.containsKey(petUUID)) return;
+
+        int slot = phaseOf(petUUID, interval);
+        int lightest = lightestSlot();
+        if (slots.get(slot).size() > slots.get(lightest).size()) {
+            slot = lightest;
+        }
+
+        slots.get(slot).add(petUUID);
+        slotOf.put(petUUID, slot);
+    }
+
+    /**
+     * 将宠物移出时间轮，并从最繁忙的槽迁移一个宠物填补空位
+     * @param petUUID 宠物UUID
+     */
+    public void unschedule(UUID petUUID) {
+        Integer slot = petUUID == null ? null : slotOf.remove(petUUID);
+        if (slot == null) return;
+
+        slots.get(slot).remove(petUUID);
+        rebalance(slot);
+    }
+
+    /**
+     * 计算UUID对应的相位
+     * @param uuid 实体UUID
+     * @param interval 周期长度
+     * @return 0到interval-1之间的相位
+     */
+    public static int phaseOf(UUID uuid, int interval) {
+        if (uuid == null || interval <= 1) return 0;
+        return Math.floorMod(uuid.hashCode(), interval);
+    }
+
+    /**
+     * 执行一个tick：先处理重新选择目标队列，再处理当前相位槽中的宠物
+     */
+    private void tick() {
+        int configured = plugin.getConfigManager().getSettings().getAiPollInterval();
+        if (configured != interval) {
+            resize(configured);
+        }
+
+        Map<UUID, OwnerContext> owners = new HashMap<>();
+        // 本tick已通过重新选择目标队列处理的宠物，时间轮中不再重复处理
+        Set<UUID> handled = null;
+
+        // 处理战斗状态发生变化的主人
+        if (!retargetQueue.isEmpty()) {
+            List<UUID> queued = new ArrayList<>(retargetQueue);
+            retargetQueue.clear();
+            for (UUID ownerUUID : queued) {
+                CombatIntent intent = plugin.getCombatListener().pollIntent(ownerUUID);
+                OwnerContext context = resolveOwner(ownerUUID, intent);
+                owners.put(ownerUUID, context);
+                if (context.owner == null) {
+                    continue;
+                }
+                for (PetRecord record : plugin.getPetRegistry().getPets(ownerUUID)) {
+                    if (handled == null) handled = new HashSet<>();
+                    handled.add(record.getPetUUID());
+                    tickPet(record, context);
+                }
+            }
+        }
+
+        Set<UUID> slot = slots.get(cursor);
+        List<UUID> stale = null;
+        for (UUID petUUID : slot) {
+            // 已注销或已移除AI的宠物移出时间轮
+            PetRecord record = plugin.getPetRegistry().get(petUUID);
+            if (record == null || record.getAIState() == PetAIState.INACTIVE) {
+                if (stale == null) stale = new ArrayList<>();
+                stale.add(petUUID);
+                continue;
+            }
+            if (handled != null && handled.contains(petUUID)) {
+                continue;
+            }
+
+            // 同一主人的宠物只查询一次战斗状态
+            OwnerContext context = owners.computeIfAbsent(record.getOwnerUUID(), this::resolveOwner);
+            if (context.owner == null) {
+                continue;
+            }
+
+            tickPet(record, context);
+        }
+
+        if (stale != null) {
+            for (UUID petUUID : stale) {
+                unschedule(petUUID);
+            }
+        }
+
+        if (++cursor >= interval) {
+            cursor = 0;
+        }
+    }
+
+    /**
+     * 按新的槽数重建时间轮，已调度的宠物重新分配槽位
+     * @param newInterval 新的轮询间隔（tick）
+     */
+    private void resize(int newInterval) {
+        List<UUID> scheduled = new ArrayList<>(slotOf.keySet());
+        slots.clear();
+        slotOf.clear();
+        interval = newInterval;
+        for (int i = 0; i < interval; i++) {
+            slots.add(new LinkedHashSet<>());
+        }
+        for (UUID petUUID : scheduled) {
+            schedule(petUUID);
+        }
+        cursor = 0;
+    }
+
+    /**
+     * 检查并更新单个宠物的目标
+     */
+    private void tickPet(PetRecord record, OwnerContext context) {
+        if (record.getAIState() == PetAIState.INACTIVE) {
+            return;
+        }
+
+        // 获取宠物实体，所在区块未加载时跳过本轮
+        Entity entity = plugin.getPetEntityIndex().get(record.getPetUUID());
+        if (!(entity instanceof Mob)) {
+            return;
+        }
+
+        try {
+            aiManager.tickPet(record, (Mob) entity, context);
+        } catch (Exception e) {
+            // 单个宠物出错不影响其他宠物
+        }
+    }
+
+    /**
+     * 如果最繁忙的槽比指定槽多出不止一个宠物，迁移一个宠物到指定槽
+     */
+    private void rebalance(int target) {
+        int heaviest = heaviestSlot();
+        if (slots.get(heaviest).size() - slots.get(target).size() <= 1) return;
+
+        Iterator<UUID> it = slots.get(heaviest).iterator();
+        UUID moved = it.next();
+        it.remove();
+        slots.get(target).add(moved);
+        slotOf.put(moved, target);
+    }
+
+    /**
+     * 获取负载最小的槽
+     */
+    private int lightestSlot() {
+        int best = 0;
+        for (int i = 1; i < interval; i++) {
+            if (slots.get(i).size() < slots.get(best).size()) best = i;
+        }
+        return best;
+    }
+
+    /**
+     * 获取负载最大的槽
+     */
+    private int heaviestSlot() {
+        int best = 0;
+        for (int i = 1; i < interval; i++) {
+            if (slots.get(i).size() > slots.get(best).size()) best = i;
+        }
+        return best;
+    }
+
+    /**
+     * 解析主人的战斗状态
+     * @param ownerUUID 主人UUID
+     * @return 主人战斗状态
+     */
+    private OwnerContext resolveOwner(UUID ownerUUID) {
+        return resolveOwner(ownerUUID, null);
+    }
+
+    /**
+     * 解析主人的战斗状态，并按选择规则确定本tick战斗意图的最终目标
+     * @param ownerUUID 主人UUID
+     * @param intent 本tick的战斗意图，可能为null
+     * @return 主人战斗状态
+     */
+    private OwnerContext resolveOwner(UUID ownerUUID, CombatIntent intent) {
+        Player owner = Bukkit.getPlayer(ownerUUID);
+        if (owner == null || !owner.isOnline()) {
+            return new OwnerContext(null, false, null, null, null);
+        }
+
+        boolean inCombat = plugin.getCombatListener().isPlayerInCombat(ownerUUID);
+        if (!inCombat) {
+            return new OwnerContext(owner, false, null, null, null);
+        }
+
+        LivingEntity selected = intent == null ? null : intent.select(
+                plugin.getConfigManager().getSettings().getTargetSelection(), owner);
+        return new OwnerContext(owner, true,
+                resolveLiving(plugin.getCombatListener().getPlayerAttacker(ownerUUID)),
+                resolveLiving(plugin.getCombatListener().getPlayerTarget(ownerUUID)),
+                selected);
+    }
+
+    /**
+     * 根据UUID获取生物实体
+     */
+    private LivingEntity resolveLiving(UUID uuid) {
+        if (uuid == null) return null;
+        Entity entity = Bukkit.getEntity(uuid);
+        return entity instanceof LivingEntity ? (LivingEntity) entity : null;
+    }
+
+    /**
+     * 一次遍历内共享的主人战斗状态
+     */
+    static final class OwnerContext {
+        final Player owner;
+        final boolean inCombat;
+        final LivingEntity attacker;
+        final LivingEntity target;
+        // 本tick战斗意图按规则选出的目标，没有新的战斗事件时为null
+        final LivingEntity intent;
+
+        OwnerContext(Player owner, boolean inCombat, LivingEntity attacker, LivingEntity target, LivingEntity intent) {
+            this.owner = owner;
+            this.inCombat = inCombat;
+            this.attacker = attacker;
+            this.target = target;
+            this.intent = intent;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package cn.i7mc.minepal.ai.manager;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.pet.control.TargetPriority;
+import io.lumine.mythic.api.adapters.AbstractEntity;
+import io.lumine.mythic.api.adapters.AbstractLocation;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Mob;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * 宠物AI行为的公共操作
+ * 每个AI行为在构造时创建一个实例并保存插件引用，AI每tick执行时不再重新查找插件
+ */
+public class PetGoalHelper {
+    private final MinePal plugin;
+
+    public PetGoalHelper() {
+        this(JavaPlugin.getPlugin(MinePal.class));
+    }
+
+    public PetGoalHelper(MinePal plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 通过目标仲裁器设置宠物目标，仲裁器不可用时直接设置
+     * @param mob 宠物实体
+     * @param target 目标实体
+     * @param priority 请求的优先级
+     */
+    public void requestTarget(Mob mob, LivingEntity target, TargetPriority priority) {
+        if (plugin != null && plugin.getTargetArbiter() != null) {
+            plugin.getTargetArbiter().request(mob, target, priority);
+        } else {
+            mob.setTarget(target);
+        }
+    }
+
+    /**
+     * 通过宠物传送服务传送到主人身边，同一宠物的传送进行中时只更新目标位置
+     * 不是MinePal宠物的实体仍然直接传送
+     * @param entity 宠物实体
+     * @param owner 主人
+     * @param ownerLocation 主人位置
+     */
+    public void teleportToOwner(AbstractEntity entity, Player owner, AbstractLocation ownerLocation) {
+        if (isPet(entity) && plugin.getPetTeleporter() != null) {
+            plugin.getPetTeleporter().teleport(entity.getBukkitEntity(), owner.getLocation());
+        } else {
+            entity.teleport(ownerLocation);
+        }
+    }
+
+    /**
+     * 请求把宠物转移到主人所在的世界，保留宠物实体和状态
+     * 不是MinePal宠物的实体仍然直接传送
+     * @param entity 宠物实体
+     * @param owner 主人
+     * @param ownerLocation 主人位置
+     */
+    public void requestTransfer(AbstractEntity entity, Player owner, AbstractLocation ownerLocation) {
+        if (isPet(entity) && plugin.getWorldTransfer() != null) {
+            plugin.getWorldTransfer().request(owner, entity.getUniqueId());
+        } else {
+            entity.teleport(ownerLocation);
+        }
+    }
+
+    private boolean isPet(AbstractEntity entity) {
+        return plugin != null && plugin.getPetRegistry().isPet(entity.getUniqueId());
+    }
+}
@@ -0,0 +1,123 @@
+package cn.i7mc.minepal.ai.manager;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.pet.control.PetRecord;
+import cn.i7mc.minepal.pet.control.TargetPriority;
+import cn.i7mc.minepal.utils.PluginSettings;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Mob;
+
+/**
+ * 宠物目标仲裁器，统一负责宠物的最终setTarget决定
+ * 高优先级的目标可以立即抢占低优先级的目标；同级或低优先级的请求必须等当前目标保持足够时间，
+ * 并且新目标明显优于当前目标（距离按比例更近）时才会切换，避免宠物在多个目标之间反复切换导致寻路频繁重算
+ */
+public class TargetArbiter {
+    private final MinePal plugin;
+
+    public TargetArbiter(MinePal plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 请求将宠物目标设置为候选目标
+     * @param pet 宠物实体
+     * @param candidate 候选目标
+     * @param priority 请求的优先级
+     * @return 请求完成后宠物目标是否为候选目标
+     */
+    public boolean request(Mob pet, LivingEntity candidate, TargetPriority priority) {
+        if (pet == null || candidate == null || candidate.getUniqueId().equals(pet.getUniqueId())) {
+            return false;
+        }
+
+        PetRecord record = plugin.getPetRegistry().get(pet.getUniqueId());
+        LivingEntity current = pet.getTarget();
+        long now = System.currentTimeMillis();
+
+        // 非注册宠物不受仲裁，只避免重复设置
+        if (record == null) {
+            if (current == null || !current.getUniqueId().equals(candidate.getUniqueId())) {
+                pet.setTarget(candidate);
+            }
+            return true;
+        }
+
+        // 已经是当前目标，只在优先级提高时更新记录
+        if (current != null && current.getUniqueId().equals(candidate.getUniqueId())) {
+            if (priority.isHigherThan(record.getTargetPriority())) {
+                record.setArbitratedTarget(candidate.getUniqueId(), priority, record.getTargetSince());
+            }
+            return true;
+        }
+
+        if (!shouldSwitch(pet, record, current, candidate, priority, now)) {
+            return false;
+        }
+
+        pet.setTarget(candidate);
+        record.setArbitratedTarget(candidate.getUniqueId(), priority, now);
+        return true;
+    }
+
+    /**
+     * 清除宠物目标，例如目标死亡、超出范围或宠物AI被移除
+     * @param pet 宠物实体
+     */
+    public void clear(Mob pet) {
+        if (pet == null) return;
+
+        if (pet.getTarget() != null) {
+            pet.setTarget(null);
+        }
+
+        PetRecord record = plugin.getPetRegistry().get(pet.getUniqueId());
+        if (record != null) {
+            record.setArbitratedTarget(null, TargetPriority.IDLE, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 判断是否应该从当前目标切换到候选目标
+     */
+    private boolean shouldSwitch(Mob pet, PetRecord record, LivingEntity current, LivingEntity candidate,
+                                 TargetPriority priority, long now) {
+        // 当前没有有效目标，直接接受
+        if (current == null || current.isDead() || !current.isValid()) {
+            return true;
+        }
+
+        // 当前目标不是仲裁器设置的（例如原版AI自行选择），视为最低优先级
+        TargetPriority currentPriority = current.getUniqueId().equals(record.getLastTarget())
+                ? record.getTargetPriority() : TargetPriority.IDLE;
+
+        // 更高优先级立即抢占
+        if (priority.isHigherThan(currentPriority)) {
+            return true;
+        }
+
+        // 参数每次从配置快照读取，重载后立即生效
+        PluginSettings settings = plugin.getConfigManager().getSettings();
+
+        // 同级或更低优先级必须等待最短保持时间
+        if (now - record.getTargetSince() < settings.getArbiterMinDwellMillis()) {
+            return false;
+        }
+
+        // 更低优先级在保持时间结束后也不抢占仍然有效的目标
+        if (currentPriority.isHigherThan(priority)) {
+            return false;
+        }
+
+        // 不同世界的当前目标视为无效
+        if (!current.getWorld().equals(pet.getWorld())) {
+            return true;
+        }
+
+        // 新目标距离必须明显更近才切换
+        double currentDistanceSq = pet.getLocation().distanceSquared(current.getLocation());
+        double candidateDistanceSq = pet.getLocation().distanceSquared(candidate.getLocation());
+        double factor = 1.0 - settings.getArbiterSwitchMargin();
+        return candidateDistanceSq < currentDistanceSq * factor * factor;
+    }
+}
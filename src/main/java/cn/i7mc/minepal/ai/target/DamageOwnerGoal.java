@@ -1,5 +1,8 @@
 package cn.i7mc.minepal.ai.target;
 
+import cn.i7mc.minepal.ai.manager.PetAIDriver;
+import cn.i7mc.minepal.ai.manager.PetGoalHelper;
+import cn.i7mc.minepal.pet.control.TargetPriority;
 import io.lumine.mythic.api.adapters.AbstractEntity;
 import io.lumine.mythic.api.config.MythicLineConfig;
 import io.lumine.mythic.bukkit.BukkitAdapter;
@@ -24,6 +27,7 @@ import java.util.UUID;
  */
 @MythicAIGoal(name="damageOwner", aliases={"damageowner", "ownerHurt"}, description="攻击伤害宠物主人的实体")
 public class DamageOwnerGoal extends Pathfinder implements PathfindingTarget {
+    private final PetGoalHelper helper;
     private transient WeakReference<Player> owner = null;
     private double radiusSq;
     private int updateInterval;
@@ -35,6 +39,7 @@ public class DamageOwnerGoal extends Pathfinder implements PathfindingTarget {
     public DamageOwnerGoal(AbstractEntity entity, String line, MythicLineConfig mlc) {
         super(entity, line, mlc);
         this.goalType = Pathfinder.GoalType.TARGET;
+        this.helper = new PetGoalHelper();
         
         // 检测半径
         double radius = mlc.getDouble(new String[]{"radius", "r"}, 20.0);
@@ -42,7 +47,8 @@ public class DamageOwnerGoal extends Pathfinder implements PathfindingTarget {
         
         // 更新间隔（避免频繁检测）
         this.updateInterval = mlc.getInteger(new String[]{"interval", "i"}, 5);
-        this.currentTick = 0;
+        // 按UUID错开初始相位，避免同时召唤的宠物在同一tick集中检测
+        this.currentTick = PetAIDriver.phaseOf(entity.getUniqueId(), this.updateInterval);
     }
 
     @Override
@@ -86,7 +92,7 @@ public class DamageOwnerGoal extends Pathfinder implements PathfindingTarget {
         if (attacker != null && attacker instanceof LivingEntity) {
             Entity bukkitEntity = BukkitAdapter.adapt(this.entity);
             if (bukkitEntity instanceof Mob) {
-                ((Mob) bukkitEntity).setTarget((LivingEntity) attacker);
+                helper.requestTarget((Mob) bukkitEntity, (LivingEntity) attacker, TargetPriority.PROTECT_OWNER);
             }
         }
     }
@@ -142,7 +148,7 @@ public class DamageOwnerGoal extends Pathfinder implements PathfindingTarget {
                 
                 // 如果当前目标不是主人的攻击者，更新目标
                 if (currentTarget == null || !currentTarget.equals(attacker)) {
-                    mob.setTarget((LivingEntity) attacker);
+                    helper.requestTarget(mob, (LivingEntity) attacker, TargetPriority.PROTECT_OWNER);
                 }
             }
         }
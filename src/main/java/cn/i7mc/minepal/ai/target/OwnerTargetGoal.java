@@ -1,6 +1,9 @@
 package cn.i7mc.minepal.ai.target;
 
 import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.ai.manager.PetAIDriver;
+import cn.i7mc.minepal.ai.manager.PetGoalHelper;
+import cn.i7mc.minepal.pet.control.TargetPriority;
 import io.lumine.mythic.api.adapters.AbstractEntity;
 import io.lumine.mythic.api.config.MythicLineConfig;
 import io.lumine.mythic.bukkit.BukkitAdapter;
@@ -26,6 +29,7 @@ import java.util.UUID;
 @MythicAIGoal(name="ownerTarget", aliases={"ownertarget", "attackownertarget"}, description="攻击宠物主人的目标")
 public class OwnerTargetGoal extends Pathfinder implements PathfindingTarget {
     private final MinePal plugin;
+    private final PetGoalHelper helper;
     private transient WeakReference<Player> owner = null;
     private boolean revenge;
     private double radiusSq;
@@ -48,6 +52,7 @@ public class OwnerTargetGoal extends Pathfinder implements PathfindingTarget {
     public OwnerTargetGoal(AbstractEntity entity, String line, MythicLineConfig mlc, MinePal plugin) {
         super(entity, line, mlc);
         this.plugin = plugin;
+        this.helper = new PetGoalHelper(plugin);
         this.goalType = Pathfinder.GoalType.TARGET;
         
         // 是否攻击针对主人的实体（复仇机制）
@@ -59,7 +64,8 @@ public class OwnerTargetGoal extends Pathfinder implements PathfindingTarget {
         
         // 更新间隔（避免频繁检测）
         this.updateInterval = mlc.getInteger(new String[]{"interval", "i"}, 5);
-        this.currentTick = 0;
+        // 按UUID错开初始相位，避免同时召唤的宠物在同一tick集中检测
+        this.currentTick = PetAIDriver.phaseOf(entity.getUniqueId(), this.updateInterval);
         
         // 检查实体类型是否支持
         Entity bukkitEntity = BukkitAdapter.adapt(entity);
@@ -120,7 +126,7 @@ public class OwnerTargetGoal extends Pathfinder implements PathfindingTarget {
         if (ownerTarget != null) {
             Entity bukkitEntity = BukkitAdapter.adapt(this.entity);
             if (bukkitEntity instanceof Mob) {
-                ((Mob) bukkitEntity).setTarget(ownerTarget);
+                helper.requestTarget((Mob) bukkitEntity, ownerTarget, TargetPriority.ASSIST_OWNER);
             }
         }
     }
@@ -177,7 +183,7 @@ public class OwnerTargetGoal extends Pathfinder implements PathfindingTarget {
                 // 如果当前目标不是主人的目标，更新目标
                 if (currentTarget == null || !currentTarget.equals(ownerTarget)) {
                     // 删除调试日志
-                    mob.setTarget(ownerTarget);
+                    helper.requestTarget(mob, ownerTarget, TargetPriority.ASSIST_OWNER);
                 }
             }
         }
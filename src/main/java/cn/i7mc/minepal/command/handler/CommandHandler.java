@@ -1,6 +1,7 @@
 package cn.i7mc.minepal.command.handler;
 
 import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.pet.control.PetHotReloader;
 import cn.i7mc.minepal.pet.control.PetManager;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -66,12 +67,15 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                 }
                 
                 String petName = args[1];
-                petManager.summonPet(player, petName);
+                plugin.getSpawnQueue().summon(player, petName);
                 break;
                 
             case "remove":
             case "dismiss":
-                petManager.removePet(player);
+                if (petManager.removePet(player)) {
+                    // 主动收回的宠物不再在下次进入时恢复
+                    plugin.getPetStorage().forget(player.getUniqueId());
+                }
                 break;
                 
             case "reload":
@@ -80,23 +84,35 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                     return true;
                 }
                 
-                // 重载配置文件
-                plugin.getConfigManager().reloadAllConfigs();
+                // 重载配置文件，只处理受配置变化影响的宠物
+                PetHotReloader reloader = plugin.getHotReloader();
+                reloader.reload();
+                String error = plugin.getConfigManager().getLastError();
+                if (error != null) {
+                    // 新配置无效，仍在使用之前的配置
+                    player.sendMessage(plugin.getMessageManager().format("command.reload-invalid", "%reason%", error));
+                    break;
+                }
                 
-                // 刷新消息缓存
-                plugin.getMessageManager().refreshMessages();
+                player.sendMessage(plugin.getMessageManager().getMessage("command.reload-success"));
+                player.sendMessage(plugin.getMessageManager().format("command.reload-diff",
+                        "%despawn%", String.valueOf(reloader.getLastDespawn()),
+                        "%reapply%", String.valueOf(reloader.getLastReapply()),
+                        "%rename%", String.valueOf(reloader.getLastRename())));
+                break;
                 
-                // 清空所有现有宠物
-                if (petManager != null) {
-                    petManager.removeAllPets();
+            case "stats":
+                if (!player.hasPermission("minepal.stats")) {
+                    player.sendMessage(plugin.getMessageManager().getMessage("command.no-permission"));
+                    return true;
                 }
                 
-                player.sendMessage(plugin.getMessageManager().getMessage("command.reload-success"));
+                showStats(player);
                 break;
                 
             default:
                 // 默认情况下尝试召唤指定名称的宠物
-                petManager.summonPet(player, subCommand);
+                plugin.getSpawnQueue().summon(player, subCommand);
                 break;
         }
         
@@ -126,6 +142,11 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                 completions.add("reload");
             }
             
+            // 如果有stats权限，添加stats选项
+            if (player.hasPermission("minepal.stats")) {
+                completions.add("stats");
+            }
+            
             // 只返回与输入匹配的命令
             return completions.stream()
                     .filter(s -> s.startsWith(args[0].toLowerCase()))
@@ -140,6 +161,17 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         return new ArrayList<>();
     }
     
+    /**
+     * 显示插件运行统计信息
+     * @param player 玩家
+     */
+    private void showStats(Player player) {
+        player.sendMessage(plugin.getMessageManager().getMessage("command.stats-header"));
+        player.sendMessage(plugin.getMessageManager().format("command.stats-index",
+                "%tracked%", String.valueOf(plugin.getPetEntityIndex().size()),
+                "%full_scans%", String.valueOf(plugin.getPetEntityIndex().getFullScanCount())));
+    }
+    
     /**
      * 显示帮助信息
      * @param player 玩家
@@ -0,0 +1,85 @@
+package cn.i7mc.minepal.listeners;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 主人在一个tick内产生的战斗意图
+ * 缓存本tick内出现的所有候选目标及其累计伤害，由AI驱动器在tick结束时按选择规则取出最终目标
+ */
+public class CombatIntent {
+    // 候选目标UUID -> 本tick内累计伤害（按出现顺序）
+    private final Map<UUID, Double> candidates = new LinkedHashMap<>();
+    private UUID lastHit;
+
+    /**
+     * 记录一个候选目标
+     * @param entityUUID 候选目标UUID
+     * @param damage 本次伤害，未知时为0
+     */
+    public void offer(UUID entityUUID, double damage) {
+        if (entityUUID == null) return;
+        candidates.merge(entityUUID, Math.max(0.0, damage), Double::sum);
+        lastHit = entityUUID;
+    }
+
+    /**
+     * 按规则选择最终目标
+     * @param rule 选择规则
+     * @param owner 主人
+     * @return 最终目标，没有有效候选时返回null
+     */
+    public LivingEntity select(TargetSelectionRule rule, Player owner) {
+        if (rule == TargetSelectionRule.LAST_HIT) {
+            return resolve(lastHit);
+        }
+
+        LivingEntity best = null;
+        double bestScore = 0;
+        Location ownerLocation = owner.getLocation();
+        for (Map.Entry<UUID, Double> entry : candidates.entrySet()) {
+            LivingEntity candidate = resolve(entry.getKey());
+            if (candidate == null) continue;
+
+            double score;
+            if (rule == TargetSelectionRule.MOST_DAMAGE) {
+                score = entry.getValue();
+            } else {
+                // 距离越近分数越高，不同世界的候选排除
+                if (!candidate.getWorld().equals(ownerLocation.getWorld())) continue;
+                score = -candidate.getLocation().distanceSquared(ownerLocation);
+            }
+
+            if (best == null || score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 获取候选目标数量
+     * @return 候选数量
+     */
+    public int size() {
+        return candidates.size();
+    }
+
+    /**
+     * 根据UUID获取存活的生物实体
+     */
+    private LivingEntity resolve(UUID uuid) {
+        if (uuid == null) return null;
+        Entity entity = Bukkit.getEntity(uuid);
+        if (!(entity instanceof LivingEntity) || entity.isDead() || !entity.isValid()) return null;
+        return (LivingEntity) entity;
+    }
+}
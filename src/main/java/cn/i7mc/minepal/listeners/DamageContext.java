@@ -0,0 +1,196 @@
+package cn.i7mc.minepal.listeners;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.pet.control.ImmunityPolicy;
+import cn.i7mc.minepal.pet.control.ImmunityPolicyRegistry;
+import cn.i7mc.minepal.pet.control.PetRecord;
+import cn.i7mc.minepal.utils.EntityUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Projectile;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.projectiles.ProjectileSource;
+
+import java.util.UUID;
+
+/**
+ * 单次伤害事件的分类结果
+ * 受害者和攻击者是否为宠物、各自的主人只在创建时解析一次，之后供伤害规则链中的所有规则复用
+ */
+public class DamageContext {
+    private final EntityDamageEvent event;
+    private final EntityDamageByEntityEvent byEntityEvent;
+    private final Entity victim;
+    private final Entity damager;
+    private final Entity directDamager;
+    private final Player victimOwner;
+    private final Player damagerOwner;
+    private final ImmunityPolicy victimPolicy;
+
+    private DamageContext(EntityDamageEvent event, Entity damager, Entity directDamager,
+                          Player victimOwner, Player damagerOwner, ImmunityPolicy victimPolicy) {
+        this.event = event;
+        this.byEntityEvent = event instanceof EntityDamageByEntityEvent ? (EntityDamageByEntityEvent) event : null;
+        this.victim = event.getEntity();
+        this.damager = damager;
+        this.directDamager = directDamager;
+        this.victimOwner = victimOwner;
+        this.damagerOwner = damagerOwner;
+        this.victimPolicy = victimPolicy;
+    }
+
+    /**
+     * 对伤害事件进行一次分类
+     * @param plugin 插件实例
+     * @param event 伤害事件
+     * @return 伤害上下文
+     */
+    public static DamageContext classify(MinePal plugin, EntityDamageEvent event) {
+        Entity directDamager = null;
+        Entity damager = null;
+        if (event instanceof EntityDamageByEntityEvent) {
+            directDamager = ((EntityDamageByEntityEvent) event).getDamager();
+            damager = directDamager;
+
+            // 投射物的伤害来源视为射手
+            if (directDamager instanceof Projectile) {
+                ProjectileSource shooter = ((Projectile) directDamager).getShooter();
+                if (shooter instanceof Entity) {
+                    damager = (Entity) shooter;
+                }
+            }
+        }
+
+        Player victimOwner = resolveOwner(plugin, event.getEntity());
+        ImmunityPolicy victimPolicy = null;
+        if (victimOwner != null) {
+            // 未注册的宠物（例如驯服的动物）使用默认策略
+            PetRecord record = plugin.getPetRegistry().get(event.getEntity().getUniqueId());
+            victimPolicy = plugin.getImmunityPolicies().get(
+                    record != null ? record.getTemplateId() : ImmunityPolicyRegistry.DEFAULT_ID);
+        }
+
+        return new DamageContext(event, damager, directDamager,
+                victimOwner, resolveOwner(plugin, damager), victimPolicy);
+    }
+
+    /**
+     * 解析实体作为宠物时的主人
+     * 已注册的宠物直接查注册表，其余实体回退到驯服状态和宠物标记
+     */
+    private static Player resolveOwner(MinePal plugin, Entity entity) {
+        if (entity == null || entity instanceof Player) return null;
+
+        UUID ownerUUID = plugin.getPetRegistry().getOwner(entity.getUniqueId());
+        if (ownerUUID != null) {
+            return Bukkit.getPlayer(ownerUUID);
+        }
+
+        return EntityUtils.isPet(entity) ? EntityUtils.getPetOwner(entity) : null;
+    }
+
+    /**
+     * 获取原始伤害事件
+     * @return 伤害事件
+     */
+    public EntityDamageEvent getEvent() {
+        return event;
+    }
+
+    /**
+     * 获取实体攻击实体事件
+     * @return 实体攻击实体事件，非实体伤害时为null
+     */
+    public EntityDamageByEntityEvent getByEntityEvent() {
+        return byEntityEvent;
+    }
+
+    /**
+     * 获取伤害原因
+     * @return 伤害原因
+     */
+    public EntityDamageEvent.DamageCause getCause() {
+        return event.getCause();
+    }
+
+    /**
+     * 获取受害者
+     * @return 受害实体
+     */
+    public Entity getVictim() {
+        return victim;
+    }
+
+    /**
+     * 获取真正的伤害来源（投射物已解析为射手）
+     * @return 伤害来源，非实体伤害时为null
+     */
+    public Entity getDamager() {
+        return damager;
+    }
+
+    /**
+     * 获取直接造成伤害的实体（可能是投射物）
+     * @return 直接伤害实体，非实体伤害时为null
+     */
+    public Entity getDirectDamager() {
+        return directDamager;
+    }
+
+    /**
+     * 获取受害宠物的主人
+     * @return 主人，受害者不是宠物或主人不在线时为null
+     */
+    public Player getVictimOwner() {
+        return victimOwner;
+    }
+
+    /**
+     * 获取攻击者宠物的主人
+     * @return 主人，攻击者不是宠物或主人不在线时为null
+     */
+    public Player getDamagerOwner() {
+        return damagerOwner;
+    }
+
+    /**
+     * 获取受害宠物的免疫策略
+     * @return 免疫策略，受害者不是宠物时为null
+     */
+    public ImmunityPolicy getVictimPolicy() {
+        return victimPolicy;
+    }
+
+    /**
+     * 受害者是否为在线玩家的宠物
+     * @return 是否为宠物
+     */
+    public boolean isVictimPet() {
+        return victimOwner != null;
+    }
+
+    /**
+     * 攻击者是否为在线玩家的宠物
+     * @return 是否为宠物
+     */
+    public boolean isDamagerPet() {
+        return damagerOwner != null;
+    }
+
+    /**
+     * 取消伤害事件
+     */
+    public void cancel() {
+        event.setCancelled(true);
+    }
+
+    /**
+     * 伤害事件是否已取消
+     * @return 是否已取消
+     */
+    public boolean isCancelled() {
+        return event.isCancelled();
+    }
+}
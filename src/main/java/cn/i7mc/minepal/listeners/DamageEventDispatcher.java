@@ -0,0 +1,183 @@
+package cn.i7mc.minepal.listeners;
+
+import cn.i7mc.minepal.MinePal;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Mob;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 伤害事件分发器，统一处理与宠物相关的所有伤害事件
+ * 每个伤害事件只分类一次，生成DamageContext后依次执行规则链：
+ * 主人误伤、同主人宠物互伤、按宠物模板免疫策略的伤害类型免疫和攻击者类型免疫、主人AOE范围保护；事件最终未被取消时在MONITOR阶段记录战斗状态
+ */
+public class DamageEventDispatcher implements Listener {
+    // 主人AOE影响范围（格）
+    private static final double OWNER_AOE_RADIUS = 15.0;
+
+    // 视为技能或近战的伤害类型，用于主人AOE范围判断
+    private static final Set<EntityDamageEvent.DamageCause> SKILL_CAUSES = EnumSet.of(
+            EntityDamageEvent.DamageCause.ENTITY_ATTACK,
+            EntityDamageEvent.DamageCause.CUSTOM,
+            EntityDamageEvent.DamageCause.MAGIC
+    );
+
+    private final MinePal plugin;
+    private final List<DamageRule> rules;
+
+    // 保护阶段分类的上下文，MONITOR阶段复用，避免重复分类
+    private DamageContext pending;
+
+    public DamageEventDispatcher(MinePal plugin) {
+        this.plugin = plugin;
+
+        // 规则按顺序执行，任一规则返回true即终止
+        List<DamageRule> chain = new ArrayList<>();
+        chain.add(this::ownerFriendlyFire);
+        chain.add(this::sameOwnerPets);
+        chain.add(this::environmentalImmunity);
+        chain.add(this::damagerTypeImmunity);
+        chain.add(this::ownerAoeRadius);
+        this.rules = Collections.unmodifiableList(chain);
+    }
+
+    /**
+     * 保护阶段：分类伤害事件并执行规则链
+     * 与原先的保护监听器一样在HIGHEST阶段执行，其他插件较早的处理不会撤销宠物保护
+     * @param event 伤害事件
+     */
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onEntityDamage(EntityDamageEvent event) {
+        DamageContext context = DamageContext.classify(plugin, event);
+        pending = context;
+
+        // 与宠物无关的事件不需要执行保护规则
+        if (!context.isVictimPet() && !context.isDamagerPet()) {
+            return;
+        }
+
+        for (DamageRule rule : rules) {
+            if (rule.apply(context)) {
+                break;
+            }
+        }
+
+        // 事件已取消时MONITOR阶段不会执行，不再保留上下文及其中的事件和实体引用
+        if (context.isCancelled()) {
+            pending = null;
+        }
+    }
+
+    /**
+     * 监听阶段：事件最终未被取消时记录战斗状态
+     * @param event 伤害事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityDamageMonitor(EntityDamageEvent event) {
+        DamageContext context = pending != null && pending.getEvent() == event
+                ? pending : DamageContext.classify(plugin, event);
+        pending = null;
+
+        plugin.getCombatListener().recordCombat(context);
+
+        // 宠物生命值变化，标记宠物数据需要保存
+        if (context.isVictimPet() && context.getVictimOwner() != null && plugin.getPetStorage() != null) {
+            plugin.getPetStorage().markDirty(context.getVictimOwner().getUniqueId());
+        }
+    }
+
+    /**
+     * 规则：主人攻击自己的宠物，或宠物攻击自己的主人
+     */
+    private boolean ownerFriendlyFire(DamageContext context) {
+        Entity damager = context.getDamager();
+        if (damager == null) return false;
+
+        // 宠物被主人攻击
+        Player victimOwner = context.getVictimOwner();
+        if (victimOwner != null && damager.getUniqueId().equals(victimOwner.getUniqueId())) {
+            context.cancel();
+            plugin.getNotifier().notify(victimOwner, plugin.getMessageManager().getMessage("damage.prevent-owner-attack"));
+            return true;
+        }
+
+        // 宠物攻击主人，同时清除宠物的目标
+        Player damagerOwner = context.getDamagerOwner();
+        if (damagerOwner != null && context.getVictim().getUniqueId().equals(damagerOwner.getUniqueId())) {
+            context.cancel();
+            if (damager instanceof Mob) {
+                plugin.getTargetArbiter().clear((Mob) damager);
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * 规则：同一主人的宠物之间互相伤害
+     */
+    private boolean sameOwnerPets(DamageContext context) {
+        Player victimOwner = context.getVictimOwner();
+        Player damagerOwner = context.getDamagerOwner();
+        if (victimOwner != null && damagerOwner != null
+                && victimOwner.getUniqueId().equals(damagerOwner.getUniqueId())) {
+            context.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 规则：宠物免疫策略中的伤害类型
+     */
+    private boolean environmentalImmunity(DamageContext context) {
+        if (context.isVictimPet() && context.getVictimPolicy().isImmuneTo(context.getCause())) {
+            context.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 规则：宠物免疫策略中的攻击者类型
+     */
+    private boolean damagerTypeImmunity(DamageContext context) {
+        Entity damager = context.getDamager();
+        if (context.isVictimPet() && damager != null
+                && context.getVictimPolicy().isImmuneToDamager(damager.getType())) {
+            context.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 规则：主人附近的玩家技能伤害视为主人的AOE影响，不伤害宠物
+     */
+    private boolean ownerAoeRadius(DamageContext context) {
+        Player victimOwner = context.getVictimOwner();
+        if (victimOwner == null || context.getByEntityEvent() == null) return false;
+        if (!SKILL_CAUSES.contains(context.getCause())) return false;
+
+        Entity damager = context.getDirectDamager();
+        if (!(damager instanceof Player) || !victimOwner.getWorld().equals(damager.getWorld())) {
+            return false;
+        }
+
+        if (victimOwner.getLocation().distanceSquared(damager.getLocation()) < OWNER_AOE_RADIUS * OWNER_AOE_RADIUS) {
+            context.cancel();
+            return true;
+        }
+        return false;
+    }
+}
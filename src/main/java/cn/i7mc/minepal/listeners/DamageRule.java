@@ -0,0 +1,14 @@
+package cn.i7mc.minepal.listeners;
+
+/**
+ * 伤害规则链中的单条规则
+ */
+@FunctionalInterface
+public interface DamageRule {
+    /**
+     * 对已分类的伤害事件应用规则
+     * @param context 伤害上下文
+     * @return 是否终止规则链（通常在取消事件后返回true）
+     */
+    boolean apply(DamageContext context);
+}
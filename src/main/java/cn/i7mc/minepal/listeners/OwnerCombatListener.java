@@ -9,11 +9,9 @@ import org.bukkit.entity.Projectile;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
-import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.ProjectileHitEvent;
-import org.bukkit.projectiles.ProjectileSource;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -31,6 +29,8 @@ public class OwnerCombatListener implements Listener {
     private final Map<UUID, UUID> playerAttackers = new ConcurrentHashMap<>();
     // 记录最后一次战斗时间
     private final Map<UUID, Long> lastCombatTime = new ConcurrentHashMap<>();
+    // 本tick内尚未处理的战斗意图（仅在主线程访问）
+    private final Map<UUID, CombatIntent> pendingIntents = new HashMap<>();
     // 战斗状态持续时间(毫秒)
     private static final long COMBAT_DURATION = 10000;
 
@@ -40,42 +40,45 @@ public class OwnerCombatListener implements Listener {
     }
 
     /**
-     * 监听伤害事件,记录玩家的战斗状态
+     * 根据已分类的伤害事件记录玩家的战斗状态
+     * 由伤害事件分发器在MONITOR阶段调用
+     * @param context 伤害上下文
      */
-    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
-    public void onEntityDamageByEntity(EntityDamageByEntityEvent event) {
-        Entity damager = event.getDamager();
-        Entity victim = event.getEntity();
+    public void recordCombat(DamageContext context) {
+        Entity victim = context.getVictim();
+        
+        // 非实体伤害：只记录玩家受到环境伤害的时间
+        if (context.getByEntityEvent() == null) {
+            if (victim instanceof Player) {
+                lastCombatTime.put(victim.getUniqueId(), System.currentTimeMillis());
+            }
+            return;
+        }
+        
+        Entity directDamager = context.getDirectDamager();
+        double damage = context.getEvent().getFinalDamage();
         
         // 处理玩家攻击其他实体的情况
-        if (damager instanceof Player && victim instanceof LivingEntity) {
-            Player player = (Player) damager;
-            UUID playerUUID = player.getUniqueId();
+        if (directDamager instanceof Player && victim instanceof LivingEntity) {
+            UUID playerUUID = directDamager.getUniqueId();
             UUID targetUUID = victim.getUniqueId();
             
             // 无条件更新战斗状态
             playerTargets.put(playerUUID, targetUUID);
             lastCombatTime.put(playerUUID, System.currentTimeMillis());
             
-            // 重要：更新宠物目标，让宠物也攻击该目标
-            plugin.getPetManager().updatePetTarget(playerUUID, targetUUID);
+            // 重要：记录战斗意图，由AI驱动器在tick结束时统一更新宠物目标
+            offerIntent(playerUUID, targetUUID, damage);
         }
         
         // 处理实体攻击玩家的情况
         if (victim instanceof Player) {
-            Player player = (Player) victim;
-            UUID playerUUID = player.getUniqueId();
-            UUID attackerUUID;
-            Entity actualAttacker = damager;
+            UUID playerUUID = victim.getUniqueId();
+            Entity actualAttacker = context.getDamager();
             
-            // 处理投射物
-            if (damager instanceof Projectile) {
-                ProjectileSource shooter = ((Projectile) damager).getShooter();
-                if (shooter instanceof Entity) {
-                    actualAttacker = (Entity) shooter;
-                } else {
-                    return; // 如果射手不是实体，不处理
-                }
+            // 射手不是实体的投射物不处理
+            if (directDamager instanceof Projectile && actualAttacker == directDamager) {
+                return;
             }
             
             // 只处理生物实体攻击
@@ -83,14 +86,14 @@ public class OwnerCombatListener implements Listener {
                 return;
             }
             
-            attackerUUID = actualAttacker.getUniqueId();
+            UUID attackerUUID = actualAttacker.getUniqueId();
             
             // 无条件更新战斗状态
             playerAttackers.put(playerUUID, attackerUUID);
             lastCombatTime.put(playerUUID, System.currentTimeMillis());
             
             // 总是更新宠物目标，让宠物攻击伤害主人的实体
-            plugin.getPetManager().updatePetTarget(playerUUID, attackerUUID);
+            offerIntent(playerUUID, attackerUUID, damage);
         }
     }
 
@@ -114,33 +117,33 @@ public class OwnerCombatListener implements Listener {
             playerTargets.put(playerUUID, targetUUID);
             lastCombatTime.put(playerUUID, System.currentTimeMillis());
             
-            // 更新宠物目标
-            plugin.getPetManager().updatePetTarget(playerUUID, targetUUID);
+            // 更新宠物目标，箭矢伤害未知，按0计算
+            offerIntent(playerUUID, targetUUID, 0.0);
         }
     }
 
     /**
-     * 监听环境伤害和其他非实体伤害事件
-     * 注意：实体攻击已经在onEntityDamageByEntity方法中处理
+     * 记录主人本tick内的候选目标，并将主人推入AI驱动器的重新选择目标队列
+     * @param playerUUID 玩家的UUID
+     * @param entityUUID 候选目标的UUID
+     * @param damage 本次伤害
      */
-    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
-    public void onEntityDamageEvent(EntityDamageEvent event) {
-        // 如果是实体攻击事件，已经在onEntityDamageByEntity方法中处理过了
-        if (event instanceof EntityDamageByEntityEvent) {
-            return;
-        }
+    private void offerIntent(UUID playerUUID, UUID entityUUID, double damage) {
+        if (!plugin.getPetRegistry().hasPets(playerUUID)) return;
         
-        // 获取被伤害实体
-        Entity victim = event.getEntity();
-        if (!(victim instanceof Player)) {
-            return;
+        pendingIntents.computeIfAbsent(playerUUID, k -> new CombatIntent()).offer(entityUUID, damage);
+        if (plugin.getPetAIDriver() != null) {
+            plugin.getPetAIDriver().requestRetarget(playerUUID);
         }
-        
-        Player player = (Player) victim;
-        UUID playerUUID = player.getUniqueId();
-        
-        // 记录环境伤害
-        lastCombatTime.put(playerUUID, System.currentTimeMillis());
+    }
+    
+    /**
+     * 取出并清除主人本tick内的战斗意图
+     * @param playerUUID 玩家的UUID
+     * @return 战斗意图，如果没有则返回null
+     */
+    public CombatIntent pollIntent(UUID playerUUID) {
+        return pendingIntents.remove(playerUUID);
     }
 
     /**
@@ -184,6 +187,7 @@ public class OwnerCombatListener implements Listener {
         playerTargets.remove(playerUUID);
         playerAttackers.remove(playerUUID);
         lastCombatTime.remove(playerUUID);
+        pendingIntents.remove(playerUUID);
     }
     
     /**
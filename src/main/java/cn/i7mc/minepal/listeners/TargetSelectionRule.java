@@ -0,0 +1,19 @@
+package cn.i7mc.minepal.listeners;
+
+/**
+ * 同一tick内主人产生多个战斗目标时的选择规则
+ */
+public enum TargetSelectionRule {
+    /**
+     * 选择最后一次命中的目标
+     */
+    LAST_HIT,
+    /**
+     * 选择本tick内累计伤害最高的目标
+     */
+    MOST_DAMAGE,
+    /**
+     * 选择距离主人最近的目标
+     */
+    CLOSEST
+}
@@ -0,0 +1,49 @@
+package cn.i7mc.minepal.pet.control;
+
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.EntityDamageEvent;
+
+import java.util.BitSet;
+
+/**
+ * 编译后的宠物免疫策略
+ * 伤害类型和攻击者类型按枚举序号、药水效果按编译时分配的序号存储在位集中，检查只需一次位测试
+ */
+public final class ImmunityPolicy {
+    private final BitSet damageCauses;
+    private final BitSet potionEffects;
+    private final BitSet damagerTypes;
+
+    ImmunityPolicy(BitSet damageCauses, BitSet potionEffects, BitSet damagerTypes) {
+        this.damageCauses = damageCauses;
+        this.potionEffects = potionEffects;
+        this.damagerTypes = damagerTypes;
+    }
+
+    /**
+     * 是否免疫指定类型的伤害
+     * @param cause 伤害原因
+     * @return 是否免疫
+     */
+    public boolean isImmuneTo(EntityDamageEvent.DamageCause cause) {
+        return cause != null && damageCauses.get(cause.ordinal());
+    }
+
+    /**
+     * 是否免疫指定序号的药水效果
+     * @param effectIndex 药水效果序号，未知效果为-1
+     * @return 是否免疫
+     */
+    public boolean isImmuneToEffect(int effectIndex) {
+        return effectIndex >= 0 && potionEffects.get(effectIndex);
+    }
+
+    /**
+     * 是否免疫指定类型实体造成的伤害
+     * @param type 攻击者实体类型
+     * @return 是否免疫
+     */
+    public boolean isImmuneToDamager(EntityType type) {
+        return type != null && damagerTypes.get(type.ordinal());
+    }
+}
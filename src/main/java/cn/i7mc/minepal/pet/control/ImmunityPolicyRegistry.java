@@ -0,0 +1,214 @@
+package cn.i7mc.minepal.pet.control;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.utils.PluginSettings;
+import io.lumine.mythic.api.config.MythicConfig;
+import io.lumine.mythic.api.mobs.MythicMob;
+import io.lumine.mythic.bukkit.MythicBukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 宠物免疫策略注册表
+ * 服务器默认策略来自config.yml的immunity节点，MythicMobs模板可以在MinePal.Immunity节点下覆盖任意一项
+ * 每个模板名称分配一个稳定的整数ID并记录在PetRecord中，加载时把所有策略编译成按ID索引的数组
+ */
+public class ImmunityPolicyRegistry {
+    // 默认策略的模板ID
+    public static final int DEFAULT_ID = 0;
+
+    // MythicMobs模板配置中的覆盖节点
+    private static final String TEMPLATE_DAMAGE_CAUSES = "MinePal.Immunity.DamageCauses";
+    private static final String TEMPLATE_POTION_EFFECTS = "MinePal.Immunity.PotionEffects";
+    private static final String TEMPLATE_DAMAGER_TYPES = "MinePal.Immunity.DamagerTypes";
+
+    private final MinePal plugin;
+
+    // 模板名称 -> 模板ID，ID在插件运行期间保持不变
+    private final Map<String, Integer> templateIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(DEFAULT_ID + 1);
+
+    // 按模板ID索引的编译结果，重新加载时整体替换
+    private volatile ImmunityPolicy[] policies;
+    // 药水效果 -> 编译时分配的序号
+    private volatile Map<PotionEffectType, Integer> effectIndex = Collections.emptyMap();
+
+    public ImmunityPolicyRegistry(MinePal plugin) {
+        this.plugin = plugin;
+        this.policies = new ImmunityPolicy[0];
+    }
+
+    /**
+     * 获取模板对应的ID，首次出现的模板会分配新的ID
+     * @param template 模板名称
+     * @return 模板ID，模板为空时返回默认ID
+     */
+    public int idOf(String template) {
+        if (template == null || template.isEmpty()) return DEFAULT_ID;
+        return templateIds.computeIfAbsent(template.toLowerCase(), k -> nextId.getAndIncrement());
+    }
+
+    /**
+     * 重新编译所有策略
+     * 应在MythicMobs加载完成后调用，读取不到模板时只编译默认策略
+     */
+    public void reload() {
+        PluginSettings settings = plugin.getConfigManager().getSettings();
+        List<String> defaultCauses = settings.getImmunityDamageCauses();
+        List<String> defaultEffects = settings.getImmunityPotionEffects();
+        List<String> defaultDamagers = settings.getImmunityDamagerTypes();
+
+        // 收集所有模板的覆盖配置
+        Map<Integer, MythicConfig> overrides = new HashMap<>();
+        try {
+            for (MythicMob mob : MythicBukkit.inst().getMobManager().getMobTypes()) {
+                MythicConfig mobConfig = mob.getConfig();
+                if (mobConfig == null) continue;
+                if (mobConfig.isSet(TEMPLATE_DAMAGE_CAUSES) || mobConfig.isSet(TEMPLATE_POTION_EFFECTS)
+                        || mobConfig.isSet(TEMPLATE_DAMAGER_TYPES)) {
+                    overrides.put(idOf(mob.getInternalName()), mobConfig);
+                }
+            }
+        } catch (Exception e) {
+            // MythicMobs尚未加载时只使用默认策略
+        }
+
+        // 为所有出现过的药水效果分配序号
+        Map<PotionEffectType, Integer> effects = new IdentityHashMap<>();
+        indexEffects(defaultEffects, effects);
+        for (MythicConfig mobConfig : overrides.values()) {
+            indexEffects(mobConfig.getStringList(TEMPLATE_POTION_EFFECTS), effects);
+        }
+
+        ImmunityPolicy defaultPolicy = new ImmunityPolicy(
+                compileCauses(defaultCauses), compileEffects(defaultEffects, effects), compileDamagers(defaultDamagers));
+
+        ImmunityPolicy[] compiled = new ImmunityPolicy[nextId.get()];
+        for (int i = 0; i < compiled.length; i++) {
+            MythicConfig mobConfig = overrides.get(i);
+            if (mobConfig == null) {
+                compiled[i] = defaultPolicy;
+                continue;
+            }
+
+            // 模板中设置了的项覆盖默认值，未设置的项沿用默认值
+            compiled[i] = new ImmunityPolicy(
+                    compileCauses(mobConfig.isSet(TEMPLATE_DAMAGE_CAUSES)
+                            ? mobConfig.getStringList(TEMPLATE_DAMAGE_CAUSES) : defaultCauses),
+                    compileEffects(mobConfig.isSet(TEMPLATE_POTION_EFFECTS)
+                            ? mobConfig.getStringList(TEMPLATE_POTION_EFFECTS) : defaultEffects, effects),
+                    compileDamagers(mobConfig.isSet(TEMPLATE_DAMAGER_TYPES)
+                            ? mobConfig.getStringList(TEMPLATE_DAMAGER_TYPES) : defaultDamagers));
+        }
+
+        effectIndex = effects;
+        policies = compiled;
+    }
+
+    /**
+     * 获取模板ID对应的策略
+     * @param templateId 模板ID
+     * @return 免疫策略，未编译的ID返回默认策略
+     */
+    public ImmunityPolicy get(int templateId) {
+        ImmunityPolicy[] current = policies;
+        if (current.length == 0) {
+            reload();
+            current = policies;
+        }
+        if (templateId < 0 || templateId >= current.length) {
+            return current[DEFAULT_ID];
+        }
+        return current[templateId];
+    }
+
+    /**
+     * 获取药水效果的编译序号
+     * @param type 药水效果类型
+     * @return 序号，没有任何策略引用该效果时返回-1
+     */
+    public int effectIndexOf(PotionEffectType type) {
+        if (type == null) return -1;
+        Integer index = effectIndex.get(type);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 为药水效果分配序号
+     */
+    private void indexEffects(List<String> names, Map<PotionEffectType, Integer> effects) {
+        for (String name : names) {
+            PotionEffectType type = resolveEffect(name);
+            if (type != null && !effects.containsKey(type)) {
+                effects.put(type, effects.size());
+            }
+        }
+    }
+
+    /**
+     * 编译伤害类型列表
+     */
+    private BitSet compileCauses(List<String> names) {
+        BitSet bits = new BitSet();
+        for (String name : names) {
+            try {
+                bits.set(EntityDamageEvent.DamageCause.valueOf(name.trim().toUpperCase()).ordinal());
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("未知的伤害类型: " + name);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 编译药水效果列表
+     */
+    private BitSet compileEffects(List<String> names, Map<PotionEffectType, Integer> effects) {
+        BitSet bits = new BitSet();
+        for (String name : names) {
+            PotionEffectType type = resolveEffect(name);
+            if (type == null) {
+                plugin.getLogger().warning("未知的药水效果: " + name);
+                continue;
+            }
+            bits.set(effects.get(type));
+        }
+        return bits;
+    }
+
+    /**
+     * 编译攻击者实体类型列表
+     */
+    private BitSet compileDamagers(List<String> names) {
+        BitSet bits = new BitSet();
+        for (String name : names) {
+            try {
+                bits.set(EntityType.valueOf(name.trim().toUpperCase()).ordinal());
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("未知的实体类型: " + name);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 根据名称解析药水效果，兼容命名空间键和旧名称
+     */
+    private PotionEffectType resolveEffect(String name) {
+        if (name == null || name.trim().isEmpty()) return null;
+        String key = name.trim().toLowerCase();
+        PotionEffectType type = PotionEffectType.getByKey(NamespacedKey.minecraft(key));
+        return type != null ? type : PotionEffectType.getByName(name.trim().toUpperCase());
+    }
+}
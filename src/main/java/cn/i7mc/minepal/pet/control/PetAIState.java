@@ -0,0 +1,19 @@
+package cn.i7mc.minepal.pet.control;
+
+/**
+ * 宠物AI状态
+ */
+public enum PetAIState {
+    /**
+     * 未应用AI
+     */
+    INACTIVE,
+    /**
+     * 已应用AI，主人不在战斗中
+     */
+    IDLE,
+    /**
+     * 已应用AI，跟随主人参与战斗
+     */
+    COMBAT
+}
@@ -0,0 +1,141 @@
+package cn.i7mc.minepal.pet.control;
+
+import cn.i7mc.minepal.MinePal;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 宠物批量移除器
+ * 一次性从注册表和实体索引解析所有宠物的实体句柄，不扫描世界中的实体；
+ * 正常运行时每tick在配置的时间预算内移除一批，插件关闭时一次性直接移除，完成后报告数量和耗时
+ */
+public class PetDespawner {
+    private final MinePal plugin;
+    private final PetManager petManager;
+    private final PetRegistry registry;
+    private BukkitTask task;
+
+    // 以下字段只在主线程访问
+    // 宠物UUID -> 实体句柄（实体未加载时为null）
+    private final Map<UUID, Entity> pending = new LinkedHashMap<>();
+    private long startNanos;
+    private int count;
+
+    public PetDespawner(MinePal plugin, PetManager petManager) {
+        this.plugin = plugin;
+        this.petManager = petManager;
+        this.registry = plugin.getPetRegistry();
+    }
+
+    /**
+     * 分批移除指定的宠物，例如模板被删除的宠物
+     * @param petUUIDs 宠物UUID
+     */
+    public void despawn(Collection<UUID> petUUIDs) {
+        enqueue(petUUIDs);
+        if (task == null && !pending.isEmpty()) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * 立即移除所有宠物，包括尚未完成的分批移除，用于插件关闭时
+     * @return 移除的宠物数量
+     */
+    public int despawnAllNow() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        List<UUID> all = new ArrayList<>();
+        for (PetRecord record : registry.snapshot()) {
+            all.add(record.getPetUUID());
+        }
+        enqueue(all);
+
+        Iterator<Map.Entry<UUID, Entity>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Entity> entry = iterator.next();
+            iterator.remove();
+            despawn(entry.getKey(), entry.getValue());
+        }
+
+        // 确保没有遗留的登记信息
+        plugin.getPetUtils().clearAllPets();
+        plugin.getPetEntityIndex().clear();
+
+        int removed = count;
+        finish();
+        return removed;
+    }
+
+    /**
+     * 一次性解析宠物的实体句柄并加入队列
+     */
+    private void enqueue(Collection<UUID> petUUIDs) {
+        if (pending.isEmpty()) {
+            startNanos = System.nanoTime();
+            count = 0;
+        }
+        PetEntityIndex index = plugin.getPetEntityIndex();
+        for (UUID petUUID : petUUIDs) {
+            if (!pending.containsKey(petUUID)) {
+                pending.put(petUUID, index.get(petUUID));
+            }
+        }
+    }
+
+    /**
+     * 每tick在时间预算内移除一批宠物，队列为空时停止
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        long budget = plugin.getConfigManager().getSettings().getDespawnBudgetNanos();
+
+        Iterator<Map.Entry<UUID, Entity>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext() && System.nanoTime() - start < budget) {
+            Map.Entry<UUID, Entity> entry = iterator.next();
+            iterator.remove();
+            despawn(entry.getKey(), entry.getValue());
+        }
+
+        if (pending.isEmpty()) {
+            task.cancel();
+            task = null;
+            finish();
+        }
+    }
+
+    private void despawn(UUID petUUID, Entity entity) {
+        // 入队后实体所在区块可能已卸载或重新加载，句柄失效时重新查找
+        if (entity != null && !entity.isValid()) {
+            entity = plugin.getPetEntityIndex().get(petUUID);
+        }
+        try {
+            petManager.despawn(petUUID, entity);
+        } catch (Exception e) {
+            // 捕获但不处理异常，继续移除其他宠物
+        }
+        count++;
+    }
+
+    /**
+     * 记录并报告本轮移除的数量和耗时
+     */
+    private void finish() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        plugin.getServer().getConsoleSender().sendMessage(plugin.getMessageManager().format("plugin.pet-despawn-complete",
+                "%count%", String.valueOf(count),
+                "%elapsed_ms%", String.format("%.2f", elapsedNanos / 1_000_000.0)));
+        count = 0;
+    }
+}
@@ -0,0 +1,158 @@
+package cn.i7mc.minepal.pet.control;
+
+import cn.i7mc.minepal.MinePal;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityRemoveEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 宠物实体索引，维护宠物UUID到实体句柄的实时映射
+ * 由召唤、死亡、区块卸载和移除事件保持同步，宠物查找只需一次哈希查询
+ */
+public class PetEntityIndex implements Listener {
+    private final MinePal plugin;
+    // 宠物UUID -> 实体句柄
+    private final Map<UUID, Entity> entities = new ConcurrentHashMap<>();
+    // 仍在执行的全世界实体扫描次数
+    private final AtomicLong fullScanCount = new AtomicLong();
+
+    public PetEntityIndex(MinePal plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 登记宠物实体
+     * @param pet 宠物实体
+     */
+    public void track(Entity pet) {
+        if (pet == null) return;
+        entities.put(pet.getUniqueId(), pet);
+    }
+
+    /**
+     * 移除宠物实体的登记
+     * @param petUUID 宠物UUID
+     */
+    public void untrack(UUID petUUID) {
+        if (petUUID == null) return;
+        entities.remove(petUUID);
+    }
+
+    /**
+     * 根据UUID获取宠物实体
+     * 索引未命中时退回到Bukkit按UUID的哈希查找，不再遍历世界实体
+     * @param petUUID 宠物UUID
+     * @return 宠物实体，如果不存在或已失效则返回null
+     */
+    public Entity get(UUID petUUID) {
+        if (petUUID == null) return null;
+
+        Entity entity = entities.get(petUUID);
+        if (entity != null) {
+            if (entity.isValid()) {
+                return entity;
+            }
+            // 句柄已失效，清除旧记录
+            entities.remove(petUUID, entity);
+        }
+
+        entity = Bukkit.getEntity(petUUID);
+        if (entity != null && entity.isValid()) {
+            entities.put(petUUID, entity);
+            return entity;
+        }
+
+        return null;
+    }
+
+    /**
+     * 检查宠物是否已登记
+     * @param petUUID 宠物UUID
+     * @return 是否已登记
+     */
+    public boolean contains(UUID petUUID) {
+        return petUUID != null && entities.containsKey(petUUID);
+    }
+
+    /**
+     * 获取已登记的宠物数量
+     * @return 宠物数量
+     */
+    public int size() {
+        return entities.size();
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        entities.clear();
+    }
+
+    /**
+     * 记录一次全世界实体扫描
+     * 仅剩的全量扫描路径（启动时的残留宠物清扫）调用此方法，便于统计
+     */
+    public void recordFullScan() {
+        fullScanCount.incrementAndGet();
+    }
+
+    /**
+     * 获取全世界实体扫描的累计次数
+     * @return 扫描次数
+     */
+    public long getFullScanCount() {
+        return fullScanCount.get();
+    }
+
+    /**
+     * 宠物死亡时移除登记
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityDeath(EntityDeathEvent event) {
+        untrack(event.getEntity().getUniqueId());
+    }
+
+    /**
+     * 实体被移出世界时移除登记
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemove(EntityRemoveEvent event) {
+        untrack(event.getEntity().getUniqueId());
+    }
+
+    /**
+     * 区块实体卸载时移除登记，句柄在重新加载后会被替换
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        if (entities.isEmpty()) return;
+        for (Entity entity : event.getEntities()) {
+            entities.remove(entity.getUniqueId());
+        }
+    }
+
+    /**
+     * 区块实体加载时重新登记已注册的宠物
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        if (plugin.getPetUtils() == null) return;
+        for (Entity entity : event.getEntities()) {
+            if (plugin.getPetUtils().isPetEntity(entity)) {
+                track(entity);
+            }
+        }
+    }
+}
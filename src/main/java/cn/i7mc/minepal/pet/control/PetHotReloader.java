@@ -0,0 +1,272 @@
+package cn.i7mc.minepal.pet.control;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.ai.manager.PetAIManager;
+import cn.i7mc.minepal.utils.PluginSettings;
+import io.lumine.mythic.api.config.MythicConfig;
+import io.lumine.mythic.api.mobs.MythicMob;
+import io.lumine.mythic.bukkit.MythicBukkit;
+import io.lumine.mythic.core.mobs.ActiveMob;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 宠物热重载器
+ * 重载时不再清除所有宠物，而是把新的配置和MythicMobs模板与现有宠物逐一比较：
+ * 模板被删除的宠物收回，模板内容变化的宠物重新应用AI和名称，只有名称格式变化时仅刷新名称
+ * 收回的宠物交给批量移除器按时间预算分批移除；其余需要处理的宠物放入队列，每tick处理有限数量，
+ * 避免重载瞬间集中执行大量AI和名称更新
+ */
+public class PetHotReloader {
+    /**
+     * 宠物需要执行的重载操作，序号越大操作越完整，合并时保留更完整的操作
+     */
+    enum Action {
+        RENAME,
+        REAPPLY
+    }
+
+    private final MinePal plugin;
+    private final PetManager petManager;
+    private final PetRegistry registry;
+
+    // 上一次记录的模板指纹，模板名称小写 -> 指纹
+    private Map<String, String> fingerprints = new HashMap<>();
+
+    // 待处理的宠物，宠物UUID -> 操作
+    private final Map<UUID, Action> pending = new LinkedHashMap<>();
+    private BukkitTask task;
+
+    // 最近一次重载的统计
+    private int lastDespawn;
+    private int lastReapply;
+    private int lastRename;
+
+    public PetHotReloader(MinePal plugin, PetManager petManager) {
+        this.plugin = plugin;
+        this.petManager = petManager;
+        this.registry = plugin.getPetRegistry();
+    }
+
+    /**
+     * 记录当前所有MythicMobs模板的指纹，作为下一次重载的比较基准
+     * 应在MythicMobs加载完成后调用
+     */
+    public void captureTemplates() {
+        Map<String, String> current = readFingerprints();
+        if (current != null) {
+            fingerprints = current;
+        }
+    }
+
+    /**
+     * 重载配置并把变化应用到现有宠物
+     * 依次重载配置文件、消息和免疫策略，然后比较差异并把需要处理的宠物加入队列
+     */
+    public void reload() {
+        PluginSettings before = plugin.getConfigManager().getSettings();
+
+        plugin.getConfigManager().reloadAllConfigs();
+        plugin.getMessageManager().refreshMessages();
+        plugin.getImmunityPolicies().reload();
+
+        PluginSettings after = plugin.getConfigManager().getSettings();
+        boolean namesChanged = before.isNameVariablesEnabled() != after.isNameVariablesEnabled()
+                || !before.getDisplayNameFormat().equals(after.getDisplayNameFormat())
+                || !before.getNameVariables().equals(after.getNameVariables());
+
+        // 读取不到模板时不比较模板差异，避免误收回所有宠物
+        Map<String, String> previous = fingerprints;
+        Map<String, String> current = readFingerprints();
+        if (current != null) {
+            fingerprints = current;
+        }
+
+        lastDespawn = 0;
+        lastReapply = 0;
+        lastRename = 0;
+
+        // 模板被删除的宠物交给批量移除器按时间预算收回
+        List<UUID> despawn = new ArrayList<>();
+        for (PetRecord record : registry.snapshot()) {
+            String template = record.getTemplate();
+            if (template == null) continue;
+
+            String key = template.toLowerCase();
+            String fingerprint = current == null ? previous.get(key) : current.get(key);
+            Action action;
+            if (current != null && fingerprint == null) {
+                despawn.add(record.getPetUUID());
+                pending.remove(record.getPetUUID());
+                plugin.getPetStorage().forget(record.getOwnerUUID());
+                notifyRemoved(record);
+                lastDespawn++;
+                continue;
+            } else if (fingerprint != null && !fingerprint.equals(previous.get(key))) {
+                action = Action.REAPPLY;
+                lastReapply++;
+            } else if (namesChanged) {
+                action = Action.RENAME;
+                lastRename++;
+            } else {
+                continue;
+            }
+
+            enqueue(record.getPetUUID(), action);
+        }
+
+        if (!despawn.isEmpty()) {
+            plugin.getPetDespawner().despawn(despawn);
+        }
+        if (!pending.isEmpty() && task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * 加入队列，同一宠物已有操作时保留更完整的操作
+     */
+    private void enqueue(UUID petUUID, Action action) {
+        Action existing = pending.get(petUUID);
+        if (existing == null || action.ordinal() > existing.ordinal()) {
+            pending.put(petUUID, action);
+        }
+    }
+
+    /**
+     * 每tick处理有限数量的宠物
+     */
+    private void tick() {
+        int budget = plugin.getConfigManager().getSettings().getReloadPetsPerTick();
+        Iterator<Map.Entry<UUID, Action>> iterator = pending.entrySet().iterator();
+        while (budget > 0 && iterator.hasNext()) {
+            Map.Entry<UUID, Action> entry = iterator.next();
+            iterator.remove();
+            budget--;
+
+            try {
+                process(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                // 忽略单个宠物的异常，继续处理其他宠物
+            }
+        }
+
+        if (pending.isEmpty()) {
+            stop();
+        }
+    }
+
+    /**
+     * 对单个宠物执行重载操作
+     */
+    private void process(UUID petUUID, Action action) {
+        PetRecord record = registry.get(petUUID);
+        if (record == null) return;
+
+        Player owner = Bukkit.getPlayer(record.getOwnerUUID());
+
+        // MythicMobs重载后ActiveMob句柄可能已替换，重新获取
+        ActiveMob activeMob = MythicBukkit.inst().getMobManager().getActiveMob(petUUID).orElse(null);
+        if (activeMob == null) {
+            activeMob = record.getActiveMob();
+        } else {
+            record.setActiveMob(activeMob);
+        }
+        if (activeMob == null || owner == null) return;
+
+        if (action == Action.REAPPLY) {
+            // 模板的显示名称可能已修改，更新宠物原始名称
+            String displayName = activeMob.getDisplayName();
+            if (displayName != null && !displayName.isEmpty()) {
+                record.setBaseName(displayName);
+            }
+
+            PetAIManager aiManager = petManager.getAIManager();
+            aiManager.removeAI(activeMob);
+            aiManager.applyAI(activeMob, owner);
+        }
+        petManager.updatePetDisplayName(activeMob, owner, record.getTemplate());
+    }
+
+    /**
+     * 告知主人宠物因模板被删除而收回
+     */
+    private void notifyRemoved(PetRecord record) {
+        Player owner = Bukkit.getPlayer(record.getOwnerUUID());
+        if (owner != null) {
+            owner.sendMessage(plugin.getMessageManager().format("pet.template-removed",
+                    "%pet_name%", record.getTemplate()));
+        }
+    }
+
+    /**
+     * 读取所有MythicMobs模板的指纹
+     * 指纹只包含影响宠物外观和AI的配置项
+     * @return 模板名称小写 -> 指纹，MythicMobs不可用时返回null
+     */
+    private Map<String, String> readFingerprints() {
+        Map<String, String> result = new HashMap<>();
+        try {
+            for (MythicMob mob : MythicBukkit.inst().getMobManager().getMobTypes()) {
+                MythicConfig config = mob.getConfig();
+                StringBuilder fingerprint = new StringBuilder();
+                if (config != null) {
+                    fingerprint.append(config.getString("Type", "")).append('|')
+                            .append(config.getString("Display", "")).append('|')
+                            .append(config.getDouble("Health", 0.0)).append('|')
+                            .append(config.getStringList("AIGoalSelectors")).append('|')
+                            .append(config.getStringList("AITargetSelectors"));
+                }
+                result.put(mob.getInternalName().toLowerCase(), fingerprint.toString());
+            }
+        } catch (Exception e) {
+            // MythicMobs尚未加载
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * 停止队列处理并清空待处理的宠物
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        pending.clear();
+    }
+
+    /**
+     * 获取最近一次重载收回的宠物数量
+     * @return 宠物数量
+     */
+    public int getLastDespawn() {
+        return lastDespawn;
+    }
+
+    /**
+     * 获取最近一次重载重新应用AI的宠物数量
+     * @return 宠物数量
+     */
+    public int getLastReapply() {
+        return lastReapply;
+    }
+
+    /**
+     * 获取最近一次重载只刷新名称的宠物数量
+     * @return 宠物数量
+     */
+    public int getLastRename() {
+        return lastRename;
+    }
+}
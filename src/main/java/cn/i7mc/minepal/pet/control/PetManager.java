@@ -2,9 +2,10 @@ package cn.i7mc.minepal.pet.control;
 
 import cn.i7mc.minepal.MinePal;
 import cn.i7mc.minepal.ai.manager.PetAIManager;
+import cn.i7mc.minepal.storage.PetData;
 import cn.i7mc.minepal.utils.EntityUtils;
 import cn.i7mc.minepal.utils.PetUtils;
-import cn.i7mc.minepal.utils.DamageUtils;
+import cn.i7mc.minepal.utils.PluginSettings;
 import io.lumine.mythic.api.adapters.AbstractEntity;
 import io.lumine.mythic.api.mobs.MythicMob;
 import io.lumine.mythic.bukkit.BukkitAdapter;
@@ -12,16 +13,12 @@ import io.lumine.mythic.bukkit.MythicBukkit;
 import io.lumine.mythic.core.mobs.ActiveMob;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.ChatColor;
 
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -32,16 +29,13 @@ public class PetManager {
     private final MinePal plugin;
     private PetAIManager aiManager;
     private final PetUtils petUtils;
-    private final DamageUtils damageUtils;
-    
-    private final Map<UUID, LivingEntity> pets = new HashMap<>();
-    private final Map<UUID, UUID> petOwnerMap = new HashMap<>();
+    private final PetRegistry registry;
     
     public PetManager(MinePal plugin, PetAIManager aiManager, PetUtils petUtils) {
         this.plugin = plugin;
         this.aiManager = aiManager;
         this.petUtils = petUtils;
-        this.damageUtils = plugin.getDamageUtils();
+        this.registry = plugin.getPetRegistry();
     }
     
     /**
@@ -66,20 +60,29 @@ public class PetManager {
      * @return 是否成功召唤
      */
     public boolean summonPet(Player player, String petName) {
+        return spawnPet(player, petName, true) != null;
+    }
+    
+    /**
+     * 召唤宠物并返回注册表中的记录
+     * @param player 玩家
+     * @param petName MythicMobs中配置的宠物模板名称
+     * @param announce 是否向玩家发送召唤成功消息，自动恢复时不发送
+     * @return 新宠物的记录，召唤失败时为null
+     */
+    private PetRecord spawnPet(Player player, String petName, boolean announce) {
         // 检查MythicMobs是否存在该宠物模板
         Optional<MythicMob> mythicMob = MythicBukkit.inst().getMobManager().getMythicMob(petName);
         if (!mythicMob.isPresent()) {
-            player.sendMessage(plugin.getMessageManager().getMessage("pet.summon-failed")
-                    .replace("%reason%", "宠物模板不存在"));
-            return false;
+            player.sendMessage(plugin.getMessageManager().format("pet.summon-failed",
+                    "%reason%", "宠物模板不存在"));
+            return null;
         }
         
         // 检查玩家是否已达到宠物数量上限
-        if (petUtils.hasPet(player) && petUtils.getMaxPetsPerPlayer() <= 1) {
-            // 如果配置了允许多个宠物，这里可以检查当前数量
-            // 目前仅支持每个玩家一个宠物
+        if (registry.getPets(player.getUniqueId()).size() >= petUtils.getMaxPetsPerPlayer()) {
             player.sendMessage(plugin.getMessageManager().getMessage("pet.limit-reached"));
-            return false;
+            return null;
         }
         
         // 计算安全的召唤位置
@@ -93,11 +96,18 @@ public class PetManager {
             // 获取Bukkit实体
             Entity pet = BukkitAdapter.adapt(activeMob.getEntity());
             
+            // 写入宠物持久化标记并登记到宠物实体索引
+            EntityUtils.tagPet(pet, player.getUniqueId(), petName);
+            plugin.getPetEntityIndex().track(pet);
+            
             // 确保宠物不会以主人为目标
             if (pet instanceof org.bukkit.entity.Mob) {
                 ((org.bukkit.entity.Mob) pet).setTarget(null);
             }
             
+            // 注册宠物到玩家，后续的AI和目标设置都依赖注册表中的记录
+            PetRecord record = petUtils.registerPet(player, pet, petName, activeMob);
+            
             // 处理宠物显示名称替换变量
             updatePetDisplayName(activeMob, player, petName);
             
@@ -107,20 +117,67 @@ public class PetManager {
             // 尝试触发宠物寻找目标
             triggerPetTargeting(player);
             
-            // 注册宠物到玩家
-            petUtils.registerPet(player, pet);
+            // 标记宠物数据需要保存
+            if (plugin.getPetStorage() != null) {
+                plugin.getPetStorage().markDirty(player.getUniqueId());
+            }
             
             // 发送消息
-            player.sendMessage(plugin.getMessageManager().getMessage("pet.summon-success")
-                    .replace("%pet_name%", petName));
+            if (announce) {
+                player.sendMessage(plugin.getMessageManager().format("pet.summon-success",
+                        "%pet_name%", petName));
+            }
             
-            return true;
+            return record;
         } catch (Exception e) {
-            player.sendMessage(plugin.getMessageManager().getMessage("pet.summon-failed")
-                    .replace("%reason%", e.getMessage()));
+            player.sendMessage(plugin.getMessageManager().format("pet.summon-failed",
+                    "%reason%", e.getMessage()));
             e.printStackTrace();
+            return null;
+        }
+    }
+    
+    /**
+     * 根据保存的数据恢复玩家的宠物
+     * @param player 玩家
+     * @param data 宠物数据
+     * @return 是否成功恢复
+     */
+    public boolean restorePet(Player player, PetData data) {
+        // 自动恢复不发送召唤成功消息，状态只应用到本次召唤的宠物
+        PetRecord record = spawnPet(player, data.getTemplate(), false);
+        if (record == null) {
             return false;
         }
+        
+        Entity entity = plugin.getPetEntityIndex().get(record.getPetUUID());
+        if (!(entity instanceof LivingEntity)) {
+            return true;
+        }
+        
+        LivingEntity pet = (LivingEntity) entity;
+        
+        // 恢复生命值，不超过当前最大生命值
+        if (data.getHealth() > 0) {
+            pet.setHealth(Math.min(data.getHealth(), pet.getMaxHealth()));
+        }
+        
+        // 恢复宠物原始名称
+        if (data.getCustomName() != null) {
+            record.setBaseName(data.getCustomName());
+            refreshPetName(record, pet, player, data.getTemplate());
+        }
+        
+        // 恢复AI状态，驱动器会在下一次检查时根据主人战斗状态修正
+        try {
+            PetAIState state = PetAIState.valueOf(data.getAiMode());
+            if (state != PetAIState.INACTIVE) {
+                record.setAIState(state);
+            }
+        } catch (Exception e) {
+            // 忽略无法识别的AI状态
+        }
+        return true;
     }
     
     /**
@@ -138,24 +195,14 @@ public class PetManager {
             return;
         }
         
-        Entity petEntity = null;
-        for (World world : plugin.getServer().getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                if (entity.getUniqueId().equals(petUUID)) {
-                    petEntity = entity;
-                    break;
-                }
-            }
-            if (petEntity != null) break;
-        }
-        
+        Entity petEntity = plugin.getPetEntityIndex().get(petUUID);
         if (petEntity == null) {
             return;
         }
         
         try {
             // 使用EntityUtils静态方法
-            double radius = plugin.getConfigManager().getConfig("config.yml").getDouble("settings.pet-targeting-radius", 15.0);
+            double radius = plugin.getConfigManager().getSettings().getPetTargetingRadius();
             EntityUtils.setOwnerEnemyAsTarget(petEntity, owner, radius);
             
         } catch (Exception e) {
@@ -164,56 +211,34 @@ public class PetManager {
     }
     
     /**
-     * 移除玩家的宠物
+     * 移除玩家的所有宠物
      * @param player 玩家
      * @return 是否成功移除
      */
     public boolean removePet(Player player) {
-        UUID petUUID = petUtils.getPetUUID(player);
-        if (petUUID == null) {
-            player.sendMessage(plugin.getMessageManager().getMessage("pet.remove-failed")
-                    .replace("%reason%", "你没有宠物"));
+        if (despawnOwnerPets(player.getUniqueId()) == 0) {
+            player.sendMessage(plugin.getMessageManager().format("pet.remove-failed",
+                    "%reason%", "你没有宠物"));
             return false;
         }
         
-        // 获取宠物实体
-        Entity pet = null;
-        for (Entity entity : player.getWorld().getEntities()) {
-            if (entity.getUniqueId().equals(petUUID)) {
-                pet = entity;
-                break;
-            }
-        }
-        
-        if (pet == null) {
-            // 宠物可能已经不存在，只清除记录
-            petUtils.unregisterPet(player);
-            player.sendMessage(plugin.getMessageManager().getMessage("pet.remove-success"));
-            return true;
-        }
-        
-        // 获取MythicMobs实体
-        AbstractEntity abstractEntity = BukkitAdapter.adapt(pet);
-        ActiveMob activeMob = aiManager.getMythicMob(abstractEntity);
-        
-        if (activeMob != null) {
-            // 移除AI设置
-            aiManager.removeAI(activeMob);
-            
-            // 使用MythicMobs API移除实体
-            activeMob.remove();
-        } else {
-            // 如果不是MythicMobs实体，直接移除
-            pet.remove();
-        }
-        
-        // 注销宠物
-        petUtils.unregisterPet(player);
-        
         player.sendMessage(plugin.getMessageManager().getMessage("pet.remove-success"));
         return true;
     }
     
+    /**
+     * 移除主人的所有宠物实体并注销，不发送消息
+     * @param ownerUUID 主人UUID
+     * @return 移除的宠物数量
+     */
+    public int despawnOwnerPets(UUID ownerUUID) {
+        List<PetRecord> pets = new ArrayList<>(registry.getPets(ownerUUID));
+        for (PetRecord record : pets) {
+            despawn(record.getPetUUID(), plugin.getPetEntityIndex().get(record.getPetUUID()));
+        }
+        return pets.size();
+    }
+    
     /**
      * 更新玩家宠物的AI
      * @param player 玩家
@@ -223,180 +248,58 @@ public class PetManager {
         if (petUUID == null) return;
         
         // 获取宠物实体
-        for (Entity entity : player.getWorld().getEntities()) {
-            if (entity.getUniqueId().equals(petUUID)) {
-                AbstractEntity abstractEntity = BukkitAdapter.adapt(entity);
-                ActiveMob activeMob = aiManager.getMythicMob(abstractEntity);
-                
-                if (activeMob != null) {
-                    aiManager.updateAI(activeMob);
-                }
-                break;
-            }
-        }
-    }
-    
-    /**
-     * 移除所有玩家的宠物
-     * 用于插件重载或服务器关闭时清空所有宠物实体
-     */
-    public void removeAllPets() {
-        // 获取所有已注册的宠物UUID
-        Map<UUID, UUID> allPets = petUtils.getAllPets();
+        Entity entity = plugin.getPetEntityIndex().get(petUUID);
+        if (entity == null) return;
         
-        // 遍历所有宠物并移除
-        for (Map.Entry<UUID, UUID> entry : allPets.entrySet()) {
-            UUID playerUUID = entry.getKey();
-            UUID petUUID = entry.getValue();
-            
-            // 尝试获取玩家对象
-            Player player = Bukkit.getPlayer(playerUUID);
-            if (player != null) {
-                // 如果玩家在线，使用现有的removePet方法
-                removePet(player);
-            } else {
-                // 如果玩家不在线，尝试直接移除宠物实体
-                removePetByUUID(petUUID);
-            }
-        }
-        
-        // 进行全局清理以确保没有残留的宠物实体
-        forceCleanupAllPetEntities();
+        AbstractEntity abstractEntity = BukkitAdapter.adapt(entity);
+        ActiveMob activeMob = aiManager.getMythicMob(abstractEntity);
         
-        // 清空宠物注册表
-        petUtils.clearAllPets();
-        pets.clear();
-        petOwnerMap.clear();
+        if (activeMob != null) {
+            aiManager.updateAI(activeMob);
+        }
     }
     
     /**
      * 通过UUID移除指定宠物，不依赖玩家对象
      * @param petUUID 宠物UUID
      */
-    private void removePetByUUID(UUID petUUID) {
+    void removePetByUUID(UUID petUUID) {
         if (petUUID == null) return;
-        
-        boolean removed = false;
-        
-        // 遍历所有世界查找宠物实体
-        for (World world : Bukkit.getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                if (entity.getUniqueId().equals(petUUID)) {
-                    // 获取MythicMobs实体
-                    AbstractEntity abstractEntity = BukkitAdapter.adapt(entity);
-                    ActiveMob activeMob = aiManager.getMythicMob(abstractEntity);
-                    
-                    if (activeMob != null) {
-                        try {
-                            // 移除AI设置
-                            aiManager.removeAI(activeMob);
-                            // 使用MythicMobs API移除实体
-                            activeMob.remove();
-                        } catch (Exception e) {
-                            // 备用方案：直接移除实体
-                            entity.remove();
-                        }
-                    } else {
-                        // 如果不是MythicMobs实体，直接移除
-                        entity.remove();
-                    }
-                    
-                    removed = true;
-                    break;
-                }
-            }
-            if (removed) break;
-        }
-        
-        // 从管理器中移除
-        if (pets.containsKey(petUUID)) {
-            pets.remove(petUUID);
-            petOwnerMap.remove(petUUID);
-        }
+        despawn(petUUID, plugin.getPetEntityIndex().get(petUUID));
     }
     
     /**
-     * 强制清理所有可能的宠物实体，用于服务器关闭时进行彻底清理
-     * 这会检查所有实体，找出任何可能是宠物的实体并移除
-     */
-    private void forceCleanupAllPetEntities() {
-        // 检查所有世界中的实体
-        for (World world : Bukkit.getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                // 检查是否为宠物的几种方式
-                if (isPotentialPet(entity)) {
-                    try {
-                        // 尝试从MythicMobs移除
-                        AbstractEntity abstractEntity = BukkitAdapter.adapt(entity);
-                        ActiveMob activeMob = MythicBukkit.inst().getMobManager().getActiveMob(entity.getUniqueId()).orElse(null);
-                        
-                        if (activeMob != null) {
-                            try {
-                                // 移除AI
-                                if (aiManager != null) {
-                                    aiManager.removeAI(activeMob);
-                                }
-                                // 移除实体
-                                activeMob.remove();
-                            } catch (Exception e) {
-                                // 直接移除实体
-                                entity.remove();
-                            }
-                        } else {
-                            // 直接移除实体
-                            entity.remove();
-                        }
-                    } catch (Exception e) {
-                        // 捕获但不处理异常，继续清理其他实体
-                    }
-                }
-            }
-        }
-    }
-    
-    /**
-     * 判断一个实体是否可能是宠物
-     * @param entity 要检查的实体
-     * @return 是否可能是宠物
+     * 使用已解析的实体句柄移除宠物并注销
+     * @param petUUID 宠物UUID
+     * @param entity 宠物实体，可以为null
      */
-    private boolean isPotentialPet(Entity entity) {
-        // 检查实体的元数据
-        if (entity.hasMetadata("owner") || entity.hasMetadata("pet")) {
-            return true;
-        }
-        
-        // 检查注册表中是否存在
-        if (pets.containsKey(entity.getUniqueId()) || petOwnerMap.containsKey(entity.getUniqueId())) {
-            return true;
-        }
-        
-        // 检查是否在petUtils中注册过
-        if (petUtils.isPetEntity(entity)) {
-            return true;
-        }
-        
-        // 检查实体类型是否通常作为宠物
-        if (entity instanceof org.bukkit.entity.Tameable) {
-            org.bukkit.entity.Tameable tameable = (org.bukkit.entity.Tameable) entity;
-            if (tameable.isTamed()) {
-                return true;
-            }
-        }
-        
-        // 检查MythicMobs标记
-        try {
-            ActiveMob activeMob = MythicBukkit.inst().getMobManager().getActiveMob(entity.getUniqueId()).orElse(null);
+    void despawn(UUID petUUID, Entity entity) {
+        if (entity != null) {
+            // 获取MythicMobs实体
+            AbstractEntity abstractEntity = BukkitAdapter.adapt(entity);
+            ActiveMob activeMob = aiManager.getMythicMob(abstractEntity);
+            
             if (activeMob != null) {
-                // 检查MythicMobs标记或名称是否表明这是一个宠物
-                String mobType = activeMob.getType().getInternalName();
-                return mobType != null && (mobType.toLowerCase().contains("pet") || 
-                        (entity.getCustomName() != null && entity.getCustomName().contains("的")));
+                try {
+                    // 移除AI设置
+                    aiManager.removeAI(activeMob);
+                    // 使用MythicMobs API移除实体
+                    activeMob.remove();
+                } catch (Exception e) {
+                    // 备用方案：直接移除实体
+                    entity.remove();
+                }
+            } else {
+                // 如果不是MythicMobs实体，直接移除
+                entity.remove();
             }
-        } catch (Exception ignored) {
-            // 如果获取MythicMobs实体失败，忽略
+            // 实体已移除，写入日志；实体未加载时保留存活记录，由日志或清扫器之后回收
+            petUtils.recordDespawn(petUUID);
         }
+        plugin.getPetEntityIndex().untrack(petUUID);
         
-        return false;
+        // 从注册表中移除
+        petUtils.unregisterPet(petUUID);
     }
     
     /**
@@ -412,87 +315,54 @@ public class PetManager {
             Entity bukkitEntity = BukkitAdapter.adapt(activeMob.getEntity());
             if (!(bukkitEntity instanceof LivingEntity)) return;
             
-            LivingEntity livingEntity = (LivingEntity) bukkitEntity;
-            
-            // 使用EntityUtils获取宠物的显示名称（基础名称）
-            String petDisplayName = EntityUtils.getPetDisplayName(livingEntity);
-            
-            // 判断是否启用名称变量替换功能
-            boolean nameVariablesEnabled = plugin.getConfigManager().getConfig("config.yml")
-                    .getBoolean("pets.name-variables-enabled", true);
-            
-            if (nameVariablesEnabled) {
-                // 从配置中获取显示名称格式
-                String displayNameFormat = plugin.getConfigManager().getConfig("config.yml")
-                        .getString("pets.display-name-format", "&a{owner_name}的");
-                
-                // 先处理变量替换
-                String ownerPart = displayNameFormat;
-                
-                // 替换基本变量
-                ownerPart = ownerPart.replace("{owner_name}", owner.getName());
-                ownerPart = ownerPart.replace("{pet_type}", petType);
-                
-                // 从配置中获取额外的变量映射并替换
-                if (plugin.getConfigManager().getConfig("config.yml").isConfigurationSection("pets.name-variables")) {
-                    for (String key : plugin.getConfigManager().getConfig("config.yml").getConfigurationSection("pets.name-variables").getKeys(false)) {
-                        String value = plugin.getConfigManager().getConfig("config.yml").getString("pets.name-variables." + key, "");
-                        // 获取实际值
-                        String actualValue = getVariableValue(key, value, owner, petType, livingEntity);
-                        ownerPart = ownerPart.replace(key, actualValue);
-                    }
-                }
-                
-                // 应用颜色代码到所有者部分
-                ownerPart = ChatColor.translateAlternateColorCodes('&', ownerPart);
-                
-                // 拼接最终结果 - 保留宠物原始名称中的颜色代码
-                String finalDisplayName = ownerPart + petDisplayName;
-                
-                // 设置宠物显示名称
-                livingEntity.setCustomName(finalDisplayName);
-                livingEntity.setCustomNameVisible(true);
-            } else {
-                // 如果未启用变量替换，保留原始名称及其颜色代码
-                livingEntity.setCustomName(petDisplayName);
-                livingEntity.setCustomNameVisible(true);
-            }
+            refreshPetName(registry.get(bukkitEntity.getUniqueId()), (LivingEntity) bukkitEntity, owner, petType);
         } catch (Exception e) {
-            // 移除调试日志和相关代码块
+            // 忽略异常
         }
     }
-
+    
     /**
-     * 获取变量的实际值
-     * @param key 变量键
-     * @param defaultValue 默认值
-     * @param owner 宠物主人
-     * @param petType 宠物类型
+     * 按预编译的名称模板渲染宠物名称，只有结果与上一次不同时才设置
+     * @param record 宠物记录，可以为null
      * @param pet 宠物实体
-     * @return 变量的实际值
+     * @param owner 宠物主人
+     * @param petType 宠物类型名称
+     * @return 是否实际修改了名称
      */
-    private String getVariableValue(String key, String defaultValue, Player owner, String petType, LivingEntity pet) {
-        switch (key) {
-            case "{owner_name}":
-                return owner.getName();
-            case "{pet_type}":
-                return petType;
-            case "{pet_health}":
-                return String.format("%.1f", pet.getHealth());
-            case "{pet_max_health}":
-                return String.format("%.1f", pet.getMaxHealth());
-            case "{owner_level}":
-                return String.valueOf(owner.getLevel());
-            default:
-                return defaultValue;
+    public boolean refreshPetName(PetRecord record, LivingEntity pet, Player owner, String petType) {
+        // 原始名称只在第一次设置前读取，避免把已加上主人前缀的名称再次当作原始名称
+        String baseName = record != null ? record.getBaseName() : null;
+        if (baseName == null) {
+            baseName = EntityUtils.getPetDisplayName(pet);
+            if (record != null) {
+                record.setBaseName(baseName);
+            }
+        }
+        
+        // 未启用变量替换时保留原始名称及其颜色代码
+        PluginSettings settings = plugin.getConfigManager().getSettings();
+        String finalDisplayName = settings.isNameVariablesEnabled()
+                ? settings.getNameTemplate().render(owner, petType, pet) + baseName
+                : baseName;
+        
+        String previous = record != null ? record.getRenderedName() : pet.getCustomName();
+        if (finalDisplayName.equals(previous)) {
+            return false;
+        }
+        
+        pet.setCustomName(finalDisplayName);
+        pet.setCustomNameVisible(true);
+        if (record != null) {
+            record.setRenderedName(finalDisplayName);
         }
+        return true;
     }
 
     /**
-     * 获取所有宠物
+     * 获取所有宠物记录的快照
      */
-    public Map<UUID, LivingEntity> getPets() {
-        return pets;
+    public List<PetRecord> getPets() {
+        return registry.snapshot();
     }
 
     /**
@@ -500,7 +370,7 @@ public class PetManager {
      */
     public Player getPetOwner(LivingEntity pet) {
         if (pet == null) return null;
-        UUID ownerUUID = petOwnerMap.get(pet.getUniqueId());
+        UUID ownerUUID = registry.getOwner(pet.getUniqueId());
         if (ownerUUID == null) return null;
         return org.bukkit.Bukkit.getPlayer(ownerUUID);
     }
@@ -510,8 +380,8 @@ public class PetManager {
      */
     public void addPet(LivingEntity pet, Player owner) {
         if (pet == null || owner == null) return;
-        pets.put(pet.getUniqueId(), pet);
-        petOwnerMap.put(pet.getUniqueId(), owner.getUniqueId());
+        registry.register(owner.getUniqueId(), pet.getUniqueId(), null, aiManager.getMythicMob(pet));
+        plugin.getPetEntityIndex().track(pet);
     }
 
     /**
@@ -519,8 +389,8 @@ public class PetManager {
      */
     public void removePet(LivingEntity pet) {
         if (pet == null) return;
-        pets.remove(pet.getUniqueId());
-        petOwnerMap.remove(pet.getUniqueId());
+        petUtils.unregisterPet(pet.getUniqueId());
+        plugin.getPetEntityIndex().untrack(pet.getUniqueId());
     }
 
     /**
@@ -543,20 +413,13 @@ public class PetManager {
             return;
         }
         
-        // 获取主人的宠物
-        for (Map.Entry<UUID, LivingEntity> entry : pets.entrySet()) {
-            LivingEntity pet = entry.getValue();
-            
-            // 检查宠物是否属于该主人
-            UUID petOwnerUUID = petOwnerMap.get(pet.getUniqueId());
-            if (petOwnerUUID == null || !petOwnerUUID.equals(ownerUUID)) {
-                continue;
-            }
-            
-            // 设置目标
+        // 通过主人索引只遍历该主人的宠物
+        for (PetRecord record : registry.getPets(ownerUUID)) {
+            // 设置目标，由仲裁器决定是否切换
+            Entity pet = plugin.getPetEntityIndex().get(record.getPetUUID());
             if (pet instanceof org.bukkit.entity.Mob) {
-                org.bukkit.entity.Mob mobPet = (org.bukkit.entity.Mob) pet;
-                mobPet.setTarget((LivingEntity) target);
+                plugin.getTargetArbiter().request((org.bukkit.entity.Mob) pet, (LivingEntity) target,
+                        TargetPriority.ASSIST_OWNER);
             }
         }
     }
@@ -590,10 +453,11 @@ public class PetManager {
         if (pet == null) return;
         
         // 设置攻击目标
-        if (plugin.getConfigManager().getConfig("config.yml").getBoolean("pet.auto-protect-owner", true)) {
-            // 设置攻击者为宠物的目标
-            if (plugin.getAIManager() != null) {
-                plugin.getAIManager().setTarget(petUuid, attacker);
+        if (plugin.getConfigManager().getSettings().isAutoProtectOwner()) {
+            // 设置攻击者为宠物的目标，保护主人优先于其他目标
+            if (pet instanceof org.bukkit.entity.Mob && attacker instanceof LivingEntity) {
+                plugin.getTargetArbiter().request((org.bukkit.entity.Mob) pet, (LivingEntity) attacker,
+                        TargetPriority.PROTECT_OWNER);
             }
         }
     }
@@ -631,15 +495,13 @@ public class PetManager {
      */
     public List<Entity> getOwnerPets(UUID ownerUUID) {
         List<Entity> pets = new ArrayList<>();
-        // 首先检查通过PetUtils获取的主要宠物
-        for (World world : Bukkit.getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                if (entity.hasMetadata("owner")) {
-                    String ownerUUIDStr = entity.getMetadata("owner").get(0).asString();
-                    if (ownerUUIDStr.equals(ownerUUID.toString())) {
-                        pets.add(entity);
-                    }
-                }
+        if (ownerUUID == null) return pets;
+        
+        // 通过主人索引获取宠物记录，再从实体索引中取出已加载的实体
+        for (PetRecord record : registry.getPets(ownerUUID)) {
+            Entity entity = plugin.getPetEntityIndex().get(record.getPetUUID());
+            if (entity != null) {
+                pets.add(entity);
             }
         }
         return pets;
@@ -0,0 +1,102 @@
+package cn.i7mc.minepal.pet.control;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.utils.PluginSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 宠物动态名称更新器
+ * 名称模板包含宠物生命值、主人等级等变量时，按配置的间隔刷新所有宠物的名称
+ * 每tick只处理一部分宠物，使一轮刷新平摊到整个间隔内；渲染结果与上一次相同时不发送名称更新
+ */
+public class PetNameUpdater {
+    private final MinePal plugin;
+    private final PetManager petManager;
+    private final PetRegistry registry;
+    private BukkitTask task;
+
+    // 本轮刷新的宠物快照，一轮结束时才重新获取
+    private List<PetRecord> rotation = Collections.emptyList();
+    // 本轮每tick处理的数量
+    private int batch;
+    // 下一个要处理的宠物在快照中的位置
+    private int cursor;
+
+    public PetNameUpdater(MinePal plugin, PetManager petManager) {
+        this.plugin = plugin;
+        this.petManager = petManager;
+        this.registry = plugin.getPetRegistry();
+    }
+
+    /**
+     * 启动更新任务
+     */
+    public void start() {
+        if (task != null) return;
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    /**
+     * 停止更新任务
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        rotation = Collections.emptyList();
+        cursor = 0;
+    }
+
+    /**
+     * 每tick刷新一批宠物的名称
+     */
+    private void tick() {
+        PluginSettings settings = plugin.getConfigManager().getSettings();
+        if (!settings.isNameVariablesEnabled() || !settings.getNameTemplate().isDynamic()) {
+            rotation = Collections.emptyList();
+            cursor = 0;
+            return;
+        }
+
+        // 上一轮已处理完，获取新一轮的快照；本轮中注销的宠物在刷新时跳过，新注册的宠物在下一轮处理
+        if (cursor >= rotation.size()) {
+            rotation = registry.snapshot();
+            cursor = 0;
+            // 每tick处理的数量使所有宠物在一个间隔内各刷新一次
+            int interval = settings.getNameRefreshInterval();
+            batch = (rotation.size() + interval - 1) / interval;
+        }
+
+        int end = Math.min(cursor + batch, rotation.size());
+        while (cursor < end) {
+            refresh(rotation.get(cursor++));
+        }
+    }
+
+    /**
+     * 刷新单个宠物的名称
+     */
+    private void refresh(PetRecord record) {
+        if (record.getAIState() == PetAIState.INACTIVE) return;
+
+        Player owner = Bukkit.getPlayer(record.getOwnerUUID());
+        if (owner == null) return;
+
+        Entity entity = plugin.getPetEntityIndex().get(record.getPetUUID());
+        if (!(entity instanceof LivingEntity) || !entity.isValid()) return;
+
+        try {
+            petManager.refreshPetName(record, (LivingEntity) entity, owner, record.getTemplate());
+        } catch (Exception e) {
+            // 忽略异常
+        }
+    }
+}
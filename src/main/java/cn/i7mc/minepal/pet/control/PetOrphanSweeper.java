@@ -0,0 +1,165 @@
+package cn.i7mc.minepal.pet.control;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.storage.PetStorage;
+import cn.i7mc.minepal.utils.EntityUtils;
+import io.lumine.mythic.bukkit.MythicBukkit;
+import io.lumine.mythic.core.mobs.ActiveMob;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+
+/**
+ * 残留宠物清扫器
+ * 区块实体加载时只检查新加载的实体是否带有MinePal宠物标记，带标记但未注册的实体就是残留宠物；
+ * 移除操作和启动时对已加载区块的检查放入队列，每tick在配置的时间预算内处理，不会因为世界较大而卡住主线程
+ */
+public class PetOrphanSweeper implements Listener {
+    private final MinePal plugin;
+    private final PetRegistry registry;
+    private BukkitTask task;
+
+    // 以下字段只在主线程访问
+    // 等待检查的区块
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+    // 等待移除的残留宠物
+    private final Deque<Entity> orphans = new ArrayDeque<>();
+
+    public PetOrphanSweeper(MinePal plugin) {
+        this.plugin = plugin;
+        this.registry = plugin.getPetRegistry();
+    }
+
+    /**
+     * 检查所有已加载的区块，用于插件启动时
+     * 这是仍然需要遍历全部已加载实体的路径，计入实体索引的全量扫描次数
+     */
+    public void sweepLoaded() {
+        plugin.getPetEntityIndex().recordFullScan();
+        for (World world : Bukkit.getWorlds()) {
+            Collections.addAll(chunks, world.getLoadedChunks());
+        }
+        schedule();
+    }
+
+    /**
+     * 加入已确认的残留宠物，与区块检查发现的残留宠物一起在时间预算内移除
+     * @param entity 残留宠物实体
+     */
+    public void enqueue(Entity entity) {
+        if (entity == null) return;
+        orphans.add(entity);
+        schedule();
+    }
+
+    /**
+     * 停止清扫并清空队列
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        chunks.clear();
+        orphans.clear();
+    }
+
+    /**
+     * 区块实体加载时检查新加载的实体
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            if (isOrphan(entity)) {
+                orphans.add(entity);
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * 世界卸载时丢弃该世界中尚未处理的工作
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        World world = event.getWorld();
+        chunks.removeIf(chunk -> chunk.getWorld().equals(world));
+        orphans.removeIf(entity -> entity.getWorld().equals(world));
+    }
+
+    private void schedule() {
+        if (task == null && (!chunks.isEmpty() || !orphans.isEmpty())) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * 每tick在时间预算内移除残留宠物和检查区块，队列为空时停止
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        long budget = plugin.getConfigManager().getSettings().getSweepBudgetNanos();
+
+        while (System.nanoTime() - start < budget) {
+            Entity entity = orphans.poll();
+            if (entity != null) {
+                remove(entity);
+                continue;
+            }
+
+            Chunk chunk = chunks.poll();
+            if (chunk == null) break;
+            if (!chunk.isLoaded()) continue;
+            for (Entity candidate : chunk.getEntities()) {
+                if (isOrphan(candidate)) {
+                    orphans.add(candidate);
+                }
+            }
+        }
+
+        if (chunks.isEmpty() && orphans.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * 带有宠物标记但未注册的实体视为残留宠物
+     */
+    private boolean isOrphan(Entity entity) {
+        return EntityUtils.hasPetTag(entity) && !registry.isPet(entity.getUniqueId());
+    }
+
+    private void remove(Entity entity) {
+        // 处理前可能已被移除或重新注册
+        if (!entity.isValid() || registry.isPet(entity.getUniqueId())) return;
+
+        try {
+            ActiveMob activeMob = MythicBukkit.inst().getMobManager().getActiveMob(entity.getUniqueId()).orElse(null);
+            if (activeMob != null) {
+                activeMob.remove();
+            } else {
+                entity.remove();
+            }
+        } catch (Exception e) {
+            // 直接移除实体
+            entity.remove();
+        }
+
+        PetStorage storage = plugin.getPetStorage();
+        if (storage != null) {
+            storage.getJournal().recordRemove(entity.getUniqueId());
+        }
+    }
+}
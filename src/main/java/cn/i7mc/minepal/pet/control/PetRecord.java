@@ -0,0 +1,179 @@
+package cn.i7mc.minepal.pet.control;
+
+import io.lumine.mythic.core.mobs.ActiveMob;
+
+import java.util.UUID;
+
+/**
+ * 单个宠物的状态记录
+ * 主人、模板等身份信息不可变，AI状态和目标等运行时状态使用volatile字段，供异步线程安全读取
+ */
+public class PetRecord {
+    private final UUID petUUID;
+    private final UUID ownerUUID;
+    private final String template;
+    private volatile ActiveMob activeMob;
+    private volatile PetAIState aiState = PetAIState.INACTIVE;
+    private volatile UUID lastTarget;
+    private volatile TargetPriority targetPriority = TargetPriority.IDLE;
+    private volatile long targetSince;
+    private volatile int templateId = ImmunityPolicyRegistry.DEFAULT_ID;
+    // 宠物原始名称（不含主人前缀）和最近一次设置的完整名称
+    private volatile String baseName;
+    private volatile String renderedName;
+
+    public PetRecord(UUID petUUID, UUID ownerUUID, String template, ActiveMob activeMob) {
+        this.petUUID = petUUID;
+        this.ownerUUID = ownerUUID;
+        this.template = template;
+        this.activeMob = activeMob;
+    }
+
+    /**
+     * 获取宠物UUID
+     * @return 宠物UUID
+     */
+    public UUID getPetUUID() {
+        return petUUID;
+    }
+
+    /**
+     * 获取主人UUID
+     * @return 主人UUID
+     */
+    public UUID getOwnerUUID() {
+        return ownerUUID;
+    }
+
+    /**
+     * 获取宠物的MythicMobs模板名称
+     * @return 模板名称，未知时为null
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * 获取模板ID，用于查找编译后的免疫策略
+     * @return 模板ID
+     */
+    public int getTemplateId() {
+        return templateId;
+    }
+
+    /**
+     * 设置模板ID
+     * @param templateId 模板ID
+     */
+    public void setTemplateId(int templateId) {
+        this.templateId = templateId;
+    }
+
+    /**
+     * 获取宠物原始名称
+     * @return 原始名称，尚未设置名称时为null
+     */
+    public String getBaseName() {
+        return baseName;
+    }
+
+    /**
+     * 设置宠物原始名称
+     * @param baseName 原始名称
+     */
+    public void setBaseName(String baseName) {
+        this.baseName = baseName;
+    }
+
+    /**
+     * 获取最近一次设置的完整名称
+     * @return 完整名称
+     */
+    public String getRenderedName() {
+        return renderedName;
+    }
+
+    /**
+     * 记录最近一次设置的完整名称
+     * @param renderedName 完整名称
+     */
+    public void setRenderedName(String renderedName) {
+        this.renderedName = renderedName;
+    }
+
+    /**
+     * 获取宠物的ActiveMob句柄
+     * @return ActiveMob实例，可能为null
+     */
+    public ActiveMob getActiveMob() {
+        return activeMob;
+    }
+
+    /**
+     * 更新宠物的ActiveMob句柄
+     * @param activeMob ActiveMob实例
+     */
+    public void setActiveMob(ActiveMob activeMob) {
+        this.activeMob = activeMob;
+    }
+
+    /**
+     * 获取宠物AI状态
+     * @return AI状态
+     */
+    public PetAIState getAIState() {
+        return aiState;
+    }
+
+    /**
+     * 设置宠物AI状态
+     * @param aiState AI状态
+     */
+    public void setAIState(PetAIState aiState) {
+        this.aiState = aiState;
+    }
+
+    /**
+     * 获取宠物最后一次的目标
+     * @return 目标UUID，没有目标时为null
+     */
+    public UUID getLastTarget() {
+        return lastTarget;
+    }
+
+    /**
+     * 设置宠物最后一次的目标
+     * @param lastTarget 目标UUID，null表示没有目标
+     */
+    public void setLastTarget(UUID lastTarget) {
+        this.lastTarget = lastTarget;
+    }
+
+    /**
+     * 获取当前目标的优先级
+     * @return 目标优先级
+     */
+    public TargetPriority getTargetPriority() {
+        return targetPriority;
+    }
+
+    /**
+     * 获取当前目标的设置时间
+     * @return 设置时间（毫秒时间戳）
+     */
+    public long getTargetSince() {
+        return targetSince;
+    }
+
+    /**
+     * 记录由仲裁器设置的目标
+     * @param target 目标UUID，null表示没有目标
+     * @param priority 目标优先级
+     * @param since 设置时间（毫秒时间戳）
+     */
+    public void setArbitratedTarget(UUID target, TargetPriority priority, long since) {
+        this.lastTarget = target;
+        this.targetPriority = priority;
+        this.targetSince = since;
+    }
+}
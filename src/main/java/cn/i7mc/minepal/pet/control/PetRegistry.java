@@ -0,0 +1,209 @@
+package cn.i7mc.minepal.pet.control;
+
+import io.lumine.mythic.core.mobs.ActiveMob;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 宠物注册表，所有宠物状态的唯一来源
+ * 每个宠物对应一条PetRecord，同时维护宠物->记录和主人->记录列表两个方向的索引
+ * 写操作串行执行；读操作无锁，主人列表和全量快照均为不可变列表，可供异步线程直接读取
+ */
+public class PetRegistry {
+    // 宠物UUID -> 宠物记录
+    private final Map<UUID, PetRecord> records = new ConcurrentHashMap<>();
+    // 主人UUID -> 宠物记录列表（按召唤顺序，不可变）
+    private final Map<UUID, List<PetRecord>> ownerRecords = new ConcurrentHashMap<>();
+    // 全部宠物记录的不可变快照
+    private volatile List<PetRecord> snapshot = Collections.emptyList();
+
+    /**
+     * 注册宠物
+     * 如果宠物之前已注册，旧记录会被替换
+     * @param ownerUUID 主人UUID
+     * @param petUUID 宠物UUID
+     * @param template 宠物模板名称
+     * @param activeMob 宠物的ActiveMob句柄
+     * @return 新的宠物记录
+     */
+    public PetRecord register(UUID ownerUUID, UUID petUUID, String template, ActiveMob activeMob) {
+        if (ownerUUID == null || petUUID == null) return null;
+
+        PetRecord record = new PetRecord(petUUID, ownerUUID, template, activeMob);
+        synchronized (this) {
+            PetRecord previous = records.put(petUUID, record);
+            if (previous != null) {
+                removeFromOwner(previous);
+            }
+
+            List<PetRecord> list = new ArrayList<>(ownerRecords.getOrDefault(ownerUUID, Collections.emptyList()));
+            list.add(record);
+            ownerRecords.put(ownerUUID, Collections.unmodifiableList(list));
+            rebuildSnapshot();
+        }
+        return record;
+    }
+
+    /**
+     * 注销单个宠物
+     * @param petUUID 宠物UUID
+     * @return 被注销的宠物记录，如果未注册则返回null
+     */
+    public PetRecord unregisterPet(UUID petUUID) {
+        if (petUUID == null) return null;
+
+        synchronized (this) {
+            PetRecord record = records.remove(petUUID);
+            if (record != null) {
+                removeFromOwner(record);
+                rebuildSnapshot();
+            }
+            return record;
+        }
+    }
+
+    /**
+     * 注销主人的所有宠物
+     * @param ownerUUID 主人UUID
+     * @return 被注销的宠物记录列表
+     */
+    public List<PetRecord> unregisterOwner(UUID ownerUUID) {
+        if (ownerUUID == null) return Collections.emptyList();
+
+        synchronized (this) {
+            List<PetRecord> list = ownerRecords.remove(ownerUUID);
+            if (list == null) return Collections.emptyList();
+
+            for (PetRecord record : list) {
+                records.remove(record.getPetUUID(), record);
+            }
+            rebuildSnapshot();
+            return list;
+        }
+    }
+
+    /**
+     * 获取宠物记录
+     * @param petUUID 宠物UUID
+     * @return 宠物记录，如果未注册则返回null
+     */
+    public PetRecord get(UUID petUUID) {
+        return petUUID == null ? null : records.get(petUUID);
+    }
+
+    /**
+     * 获取宠物的主人
+     * @param petUUID 宠物UUID
+     * @return 主人UUID，如果不是已注册宠物则返回null
+     */
+    public UUID getOwner(UUID petUUID) {
+        PetRecord record = get(petUUID);
+        return record == null ? null : record.getOwnerUUID();
+    }
+
+    /**
+     * 获取主人的所有宠物记录
+     * @param ownerUUID 主人UUID
+     * @return 宠物记录列表（不可变）
+     */
+    public List<PetRecord> getPets(UUID ownerUUID) {
+        if (ownerUUID == null) return Collections.emptyList();
+        return ownerRecords.getOrDefault(ownerUUID, Collections.emptyList());
+    }
+
+    /**
+     * 获取主人最早召唤的宠物
+     * @param ownerUUID 主人UUID
+     * @return 宠物UUID，如果没有则返回null
+     */
+    public UUID getPrimaryPet(UUID ownerUUID) {
+        List<PetRecord> list = getPets(ownerUUID);
+        return list.isEmpty() ? null : list.get(0).getPetUUID();
+    }
+
+    /**
+     * 检查主人是否有宠物
+     * @param ownerUUID 主人UUID
+     * @return 是否有宠物
+     */
+    public boolean hasPets(UUID ownerUUID) {
+        return ownerUUID != null && ownerRecords.containsKey(ownerUUID);
+    }
+
+    /**
+     * 检查UUID是否为已注册的宠物
+     * @param petUUID 宠物UUID
+     * @return 是否为已注册的宠物
+     */
+    public boolean isPet(UUID petUUID) {
+        return petUUID != null && records.containsKey(petUUID);
+    }
+
+    /**
+     * 获取全部宠物记录的快照
+     * @return 宠物记录列表（不可变）
+     */
+    public List<PetRecord> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 获取主人到首个宠物的映射副本
+     * @return 主人UUID到宠物UUID的映射
+     */
+    public Map<UUID, UUID> getPrimaryPets() {
+        Map<UUID, UUID> result = new HashMap<>();
+        for (Map.Entry<UUID, List<PetRecord>> entry : ownerRecords.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                result.put(entry.getKey(), entry.getValue().get(0).getPetUUID());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取已注册宠物的数量
+     * @return 宠物数量
+     */
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * 清空注册表
+     */
+    public synchronized void clear() {
+        records.clear();
+        ownerRecords.clear();
+        snapshot = Collections.emptyList();
+    }
+
+    /**
+     * 从主人的记录列表中移除宠物，列表为空时一并移除主人
+     */
+    private void removeFromOwner(PetRecord record) {
+        List<PetRecord> current = ownerRecords.get(record.getOwnerUUID());
+        if (current == null) return;
+
+        List<PetRecord> list = new ArrayList<>(current);
+        list.remove(record);
+        if (list.isEmpty()) {
+            ownerRecords.remove(record.getOwnerUUID());
+        } else {
+            ownerRecords.put(record.getOwnerUUID(), Collections.unmodifiableList(list));
+        }
+    }
+
+    /**
+     * 重建全量快照
+     */
+    private void rebuildSnapshot() {
+        snapshot = Collections.unmodifiableList(new ArrayList<>(records.values()));
+    }
+}
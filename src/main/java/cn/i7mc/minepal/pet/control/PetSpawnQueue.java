@@ -0,0 +1,150 @@
+package cn.i7mc.minepal.pet.control;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.storage.PetData;
+import cn.i7mc.minepal.utils.PluginSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * 宠物召唤队列
+ * 召唤请求先加入所属玩家的队列，每tick按配置的数量和时间预算放行；
+ * 玩家之间轮流放行，同一玩家的请求按提交顺序执行，大量玩家同时进入服务器或切换世界时不会集中在同一个tick召唤
+ */
+public class PetSpawnQueue {
+    private final MinePal plugin;
+    private final PetManager petManager;
+    private BukkitTask task;
+
+    // 以下字段只在主线程访问
+    // 玩家UUID -> 待处理的请求，按轮转顺序排列
+    private final Map<UUID, Deque<Request>> queues = new LinkedHashMap<>();
+
+    public PetSpawnQueue(MinePal plugin, PetManager petManager) {
+        this.plugin = plugin;
+        this.petManager = petManager;
+    }
+
+    /**
+     * 加入召唤请求
+     * @param player 玩家
+     * @param template 宠物模板名称
+     * @return 召唤完成后完成，结果为是否成功召唤
+     */
+    public CompletableFuture<Boolean> summon(Player player, String template) {
+        return submit(player, owner -> petManager.summonPet(owner, template));
+    }
+
+    /**
+     * 加入恢复请求，轮到时玩家已有宠物则跳过
+     * @param player 玩家
+     * @param data 保存的宠物数据
+     * @return 恢复完成后完成，结果为是否成功恢复
+     */
+    public CompletableFuture<Boolean> restore(Player player, PetData data) {
+        return submit(player, owner -> !plugin.getPetUtils().hasPet(owner) && petManager.restorePet(owner, data));
+    }
+
+    /**
+     * 加入重新召唤请求，用于移除后立即恢复同一只宠物，不检查玩家是否已有其他宠物
+     * @param player 玩家
+     * @param data 移除前采集的宠物数据
+     * @return 恢复完成后完成，结果为是否成功恢复
+     */
+    public CompletableFuture<Boolean> resummon(Player player, PetData data) {
+        return submit(player, owner -> petManager.restorePet(owner, data));
+    }
+
+    /**
+     * 停止队列，未处理的请求以失败完成
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (Deque<Request> queue : queues.values()) {
+            for (Request request : queue) {
+                request.future.complete(false);
+            }
+        }
+        queues.clear();
+    }
+
+    private CompletableFuture<Boolean> submit(Player player, Predicate<Player> action) {
+        Request request = new Request(action);
+        queues.computeIfAbsent(player.getUniqueId(), key -> new ArrayDeque<>()).add(request);
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+        return request.future;
+    }
+
+    /**
+     * 每tick轮流放行各玩家的请求，达到数量上限或超出时间预算时停止，队列为空时停止任务
+     */
+    private void tick() {
+        PluginSettings settings = plugin.getConfigManager().getSettings();
+        int limit = settings.getSummonsPerTick();
+        long budget = settings.getSummonBudgetNanos();
+        long start = System.nanoTime();
+
+        // 每tick至少放行一个请求，避免单次召唤超出预算时队列停滞
+        int count = 0;
+        while (!queues.isEmpty() && count < limit && (count == 0 || System.nanoTime() - start < budget)) {
+            Iterator<Map.Entry<UUID, Deque<Request>>> iterator = queues.entrySet().iterator();
+            Map.Entry<UUID, Deque<Request>> entry = iterator.next();
+            iterator.remove();
+
+            Request request = entry.getValue().poll();
+            if (!entry.getValue().isEmpty()) {
+                // 该玩家还有请求，排到队尾
+                queues.put(entry.getKey(), entry.getValue());
+            }
+            count++;
+            admit(entry.getKey(), request);
+        }
+
+        if (queues.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void admit(UUID ownerUUID, Request request) {
+        Player player = Bukkit.getPlayer(ownerUUID);
+        if (player == null || !player.isOnline()) {
+            request.future.complete(false);
+            return;
+        }
+
+        try {
+            request.future.complete(request.action.test(player));
+        } catch (Exception e) {
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 召唤请求
+     */
+    private static final class Request {
+        private final Predicate<Player> action;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        private Request(Predicate<Player> action) {
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package cn.i7mc.minepal.pet.control;
+
+import cn.i7mc.minepal.MinePal;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 宠物传送服务
+ * 目标区块已加载时立即传送；未加载时先异步请求区块（Paper的getChunkAtAsync），加载完成后再移动宠物，
+ * 主线程不再因为传送而同步加载区块。不支持异步加载的服务端改为等待区块被加载，超时后每tick最多同步加载一个区块
+ * 同一宠物的传送尚未完成时，新的请求只更新目标位置并共用同一个结果
+ */
+public class PetTeleporter {
+    // 回退方式下等待区块被其他途径加载的时间
+    private static final int FALLBACK_WAIT_TICKS = 20;
+    // 单次传送最多请求区块的次数
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final MinePal plugin;
+    // Paper的World#getChunkAtAsync(int, int)，不可用时为null
+    private final Method chunkAtAsync;
+    private BukkitTask task;
+
+    // 以下字段只在主线程访问
+    // 宠物UUID -> 进行中的传送
+    private final Map<UUID, Request> inFlight = new HashMap<>();
+    // 区块 -> 进行中的区块加载
+    private final Map<String, ChunkLoad> loads = new LinkedHashMap<>();
+
+    public PetTeleporter(MinePal plugin) {
+        this.plugin = plugin;
+        this.chunkAtAsync = findChunkAtAsync();
+    }
+
+    /**
+     * 传送宠物
+     * @param pet 宠物实体
+     * @param target 目标位置
+     * @return 传送完成后完成，结果为是否成功传送
+     */
+    public CompletableFuture<Boolean> teleport(Entity pet, Location target) {
+        if (pet == null || target == null || target.getWorld() == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Request existing = inFlight.get(pet.getUniqueId());
+        if (existing != null) {
+            // 合并到进行中的传送，完成时使用最新的目标位置
+            existing.target = target.clone();
+            return existing.future;
+        }
+
+        if (isLoaded(target)) {
+            return CompletableFuture.completedFuture(move(pet, target));
+        }
+
+        Request request = new Request(pet, target.clone());
+        inFlight.put(pet.getUniqueId(), request);
+        load(request.target, () -> finish(request));
+        return request.future;
+    }
+
+    /**
+     * 提前请求加载目标位置所在的区块，不移动任何实体
+     * @param target 目标位置
+     */
+    public void preload(Location target) {
+        if (target == null || target.getWorld() == null || isLoaded(target)) return;
+        load(target, null);
+    }
+
+    /**
+     * 停止服务，进行中的传送以失败完成
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (Request request : inFlight.values()) {
+            request.future.complete(false);
+        }
+        inFlight.clear();
+        loads.clear();
+    }
+
+    /**
+     * 区块加载完成后移动宠物；等待期间目标换到了未加载的区块时继续等待
+     */
+    private void finish(Request request) {
+        if (inFlight.get(request.pet.getUniqueId()) != request) return;
+
+        if (!isLoaded(request.target) && ++request.attempts < MAX_ATTEMPTS) {
+            load(request.target, () -> finish(request));
+            return;
+        }
+        inFlight.remove(request.pet.getUniqueId());
+        request.future.complete(isLoaded(request.target) && move(request.pet, request.target));
+    }
+
+    private boolean move(Entity pet, Location target) {
+        if (!pet.isValid()) return false;
+        try {
+            return pet.teleport(target);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 请求加载区块，同一区块的请求合并，加载完成后在主线程执行回调
+     */
+    private void load(Location target, Runnable callback) {
+        World world = target.getWorld();
+        int chunkX = target.getBlockX() >> 4;
+        int chunkZ = target.getBlockZ() >> 4;
+        String key = world.getUID() + ":" + chunkX + ":" + chunkZ;
+
+        ChunkLoad existing = loads.get(key);
+        if (existing != null) {
+            if (callback != null) {
+                existing.callbacks.add(callback);
+            }
+            return;
+        }
+
+        ChunkLoad chunkLoad = new ChunkLoad(world, chunkX, chunkZ);
+        if (callback != null) {
+            chunkLoad.callbacks.add(callback);
+        }
+        loads.put(key, chunkLoad);
+
+        if (!requestAsync(chunkLoad, key) && task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * 通过Paper的异步接口请求区块
+     * @return 是否已发出异步请求
+     */
+    private boolean requestAsync(ChunkLoad chunkLoad, String key) {
+        if (chunkAtAsync == null) return false;
+        try {
+            CompletableFuture<?> future = (CompletableFuture<?>) chunkAtAsync.invoke(chunkLoad.world, chunkLoad.chunkX, chunkLoad.chunkZ);
+            chunkLoad.async = true;
+            future.whenComplete((chunk, error) -> {
+                if (Bukkit.isPrimaryThread()) {
+                    complete(key, chunkLoad);
+                } else if (plugin.isEnabled()) {
+                    Bukkit.getScheduler().runTask(plugin, () -> complete(key, chunkLoad));
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            // 调用失败，改用回退方式
+            return false;
+        }
+    }
+
+    /**
+     * 回退方式：等待区块被加载，超时后每tick最多同步加载一个区块
+     */
+    private void tick() {
+        boolean loadedThisTick = false;
+        List<Map.Entry<String, ChunkLoad>> ready = new ArrayList<>();
+        Iterator<Map.Entry<String, ChunkLoad>> iterator = loads.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ChunkLoad> entry = iterator.next();
+            ChunkLoad chunkLoad = entry.getValue();
+            if (chunkLoad.async) continue;
+
+            if (chunkLoad.world.isChunkLoaded(chunkLoad.chunkX, chunkLoad.chunkZ)) {
+                ready.add(entry);
+            } else if (++chunkLoad.waitedTicks >= FALLBACK_WAIT_TICKS && !loadedThisTick) {
+                chunkLoad.world.getChunkAt(chunkLoad.chunkX, chunkLoad.chunkZ);
+                loadedThisTick = true;
+                ready.add(entry);
+            }
+        }
+
+        for (Map.Entry<String, ChunkLoad> entry : ready) {
+            complete(entry.getKey(), entry.getValue());
+        }
+
+        boolean waiting = false;
+        for (ChunkLoad chunkLoad : loads.values()) {
+            if (!chunkLoad.async) {
+                waiting = true;
+                break;
+            }
+        }
+        if (!waiting && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void complete(String key, ChunkLoad chunkLoad) {
+        if (loads.get(key) != chunkLoad) return;
+        loads.remove(key);
+        for (Runnable callback : chunkLoad.callbacks) {
+            callback.run();
+        }
+    }
+
+    private static boolean isLoaded(Location location) {
+        return location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    private static Method findChunkAtAsync() {
+        try {
+            return World.class.getMethod("getChunkAtAsync", int.class, int.class);
+        } catch (NoSuchMethodException e) {
+            // 非Paper服务端
+            return null;
+        }
+    }
+
+    /**
+     * 进行中的传送
+     */
+    private static final class Request {
+        private final Entity pet;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private Location target;
+        private int attempts;
+
+        private Request(Entity pet, Location target) {
+            this.pet = pet;
+            this.target = target;
+        }
+    }
+
+    /**
+     * 进行中的区块加载
+     */
+    private static final class ChunkLoad {
+        private final World world;
+        private final int chunkX;
+        private final int chunkZ;
+        private final List<Runnable> callbacks = new ArrayList<>();
+        private boolean async;
+        private int waitedTicks;
+
+        private ChunkLoad(World world, int chunkX, int chunkZ) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+}
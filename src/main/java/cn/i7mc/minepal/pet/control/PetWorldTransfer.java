@@ -0,0 +1,194 @@
+package cn.i7mc.minepal.pet.control;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.storage.PetData;
+import io.lumine.mythic.core.mobs.ActiveMob;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 宠物跨世界转移
+ * 主人进入其他世界时把现有的宠物实体传送过去，保留实体、ActiveMob句柄、生命值和AI状态，不重新召唤；
+ * 目标区块未加载时等待加载完成再移动。传送后实体无法找回时才退回到按数据快照重新召唤
+ */
+public class PetWorldTransfer {
+    // 等待目标区块加载的最长时间
+    private static final int MAX_WAIT_TICKS = 200;
+
+    private final MinePal plugin;
+    private final PetManager petManager;
+    private final PetRegistry registry;
+    private BukkitTask task;
+
+    // 以下字段只在主线程访问
+    // 宠物UUID -> 等待中的转移
+    private final Map<UUID, Transfer> pending = new LinkedHashMap<>();
+
+    public PetWorldTransfer(MinePal plugin, PetManager petManager) {
+        this.plugin = plugin;
+        this.petManager = petManager;
+        this.registry = plugin.getPetRegistry();
+    }
+
+    /**
+     * 请求把宠物转移到主人所在的世界，同一宠物已有等待中的转移时不重复加入
+     * 请求时采集一次宠物状态，等待期间实体所在区块卸载时按该状态重新召唤
+     * @param owner 主人
+     * @param petUUID 宠物UUID
+     */
+    public void request(Player owner, UUID petUUID) {
+        if (owner == null || petUUID == null || pending.containsKey(petUUID)) return;
+        PetData data = snapshot(owner, petUUID, plugin.getPetEntityIndex().get(petUUID));
+        pending.put(petUUID, new Transfer(owner.getUniqueId(), data));
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * 停止转移并清空等待中的请求
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        pending.clear();
+    }
+
+    /**
+     * 每tick处理目标区块已加载的转移，队列为空时停止
+     */
+    private void tick() {
+        Iterator<Map.Entry<UUID, Transfer>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Transfer> entry = iterator.next();
+            if (process(entry.getKey(), entry.getValue())) {
+                iterator.remove();
+            }
+        }
+
+        if (pending.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * 处理一个转移
+     * @return 是否已结束（完成或不再需要）
+     */
+    private boolean process(UUID petUUID, Transfer transfer) {
+        Player owner = Bukkit.getPlayer(transfer.ownerUUID);
+        if (owner == null || !owner.isOnline() || !registry.isPet(petUUID)) {
+            return true;
+        }
+        Entity pet = plugin.getPetEntityIndex().get(petUUID);
+        if (pet == null) {
+            // 等待期间宠物所在区块已卸载，按请求时的状态在主人身边重新召唤
+            respawn(owner, petUUID, transfer.data);
+            return true;
+        }
+        if (pet.getWorld().equals(owner.getWorld())) {
+            return true;
+        }
+
+        // 目标位置随主人移动，每次重新计算
+        Location target = plugin.getPetUtils().getSafeSpawnLocation(owner);
+        World world = target.getWorld();
+        if (!world.isChunkLoaded(target.getBlockX() >> 4, target.getBlockZ() >> 4)) {
+            if (transfer.waitedTicks == 0 && plugin.getPetTeleporter() != null) {
+                // 请求异步加载目标区块
+                plugin.getPetTeleporter().preload(target);
+            }
+            if (++transfer.waitedTicks < MAX_WAIT_TICKS) {
+                return false;
+            }
+            // 长时间未加载，改为在主人身边重新召唤
+            respawn(owner, petUUID, snapshot(owner, petUUID, pet));
+            return true;
+        }
+
+        move(owner, petUUID, pet, target);
+        return true;
+    }
+
+    /**
+     * 传送宠物实体，并重新登记传送后的实体句柄
+     */
+    private void move(Player owner, UUID petUUID, Entity pet, Location target) {
+        // 传送前采集状态，传送失败后实体可能已失效
+        PetData data = snapshot(owner, petUUID, pet);
+        boolean teleported;
+        try {
+            teleported = pet.teleport(target);
+        } catch (Exception e) {
+            teleported = false;
+        }
+
+        // 跨世界传送后服务端可能替换实体对象，按UUID重新查找
+        Entity current = teleported ? Bukkit.getEntity(petUUID) : null;
+        ActiveMob activeMob = current != null && current.isValid() && current.getWorld().equals(target.getWorld())
+                ? plugin.getAIManager().getMythicMob(current)
+                : null;
+        if (activeMob == null) {
+            respawn(owner, petUUID, data);
+            return;
+        }
+
+        plugin.getPetEntityIndex().track(current);
+        PetRecord record = registry.get(petUUID);
+        if (record != null) {
+            record.setActiveMob(activeMob);
+        }
+    }
+
+    /**
+     * 采集宠物当前状态
+     * @return 宠物数据，宠物未注册或没有模板时为null
+     */
+    private PetData snapshot(Player owner, UUID petUUID, Entity pet) {
+        PetRecord record = registry.get(petUUID);
+        if (record == null || record.getTemplate() == null) return null;
+
+        double health = pet instanceof LivingEntity ? ((LivingEntity) pet).getHealth() : 0.0;
+        return new PetData(owner.getUniqueId(), record.getTemplate(), health,
+                record.getBaseName(), record.getAIState().name());
+    }
+
+    /**
+     * 移除宠物后按传送前采集的状态通过召唤队列在主人身边重新召唤
+     */
+    private void respawn(Player owner, UUID petUUID, PetData data) {
+        if (data == null) return;
+
+        petManager.removePetByUUID(petUUID);
+        plugin.getSpawnQueue().resummon(owner, data);
+    }
+
+    /**
+     * 等待中的转移
+     */
+    private static final class Transfer {
+        private final UUID ownerUUID;
+        // 请求时采集的宠物状态
+        private final PetData data;
+        private int waitedTicks;
+
+        private Transfer(UUID ownerUUID, PetData data) {
+            this.ownerUUID = ownerUUID;
+            this.data = data;
+        }
+    }
+}
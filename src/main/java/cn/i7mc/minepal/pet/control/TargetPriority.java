@@ -0,0 +1,28 @@
+package cn.i7mc.minepal.pet.control;
+
+/**
+ * 宠物目标的优先级，数值越大优先级越高
+ */
+public enum TargetPriority {
+    /**
+     * 宠物自行选择的目标
+     */
+    IDLE,
+    /**
+     * 协助主人攻击主人的目标
+     */
+    ASSIST_OWNER,
+    /**
+     * 保护主人，攻击伤害主人的实体
+     */
+    PROTECT_OWNER;
+
+    /**
+     * 检查是否高于另一个优先级
+     * @param other 另一个优先级
+     * @return 是否更高
+     */
+    public boolean isHigherThan(TargetPriority other) {
+        return other == null || ordinal() > other.ordinal();
+    }
+}
@@ -0,0 +1,130 @@
+package cn.i7mc.minepal.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * 按行追加写入的记录文件，供文件存储和宠物实体日志共用
+ * 打开时按顺序重放所有记录；记录数远多于有效记录时整理一次，把有效记录写入临时文件后原子替换旧文件
+ * 只在I/O线程使用
+ */
+class AppendLog {
+    // 整理的最少记录数
+    private static final int MIN_COMPACT_LINES = 1024;
+
+    private final File file;
+    private Writer writer;
+    private int lines;
+
+    AppendLog(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 打开文件，把已有的每一行按顺序交给重放函数
+     * @param replay 重放函数，需要自行忽略损坏的记录
+     */
+    void open(Consumer<String> replay) throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+
+        if (file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    replay.accept(line);
+                    lines++;
+                }
+            }
+        }
+
+        writer = openWriter();
+        if (lines > 0) {
+            // 上次写入可能中断在行中间，先换行避免与新记录连在一起
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+
+    /**
+     * 是否已打开
+     * @return 是否可以写入
+     */
+    boolean isOpen() {
+        return writer != null;
+    }
+
+    /**
+     * 追加记录并立即写入文件
+     * @param records 一行或多行记录，每行以换行结尾
+     * @param count 记录行数
+     */
+    void append(String records, int count) throws IOException {
+        writer.write(records);
+        writer.flush();
+        lines += count;
+    }
+
+    /**
+     * 文件中的记录数是否远多于有效记录
+     * @param liveCount 有效记录数
+     * @return 是否需要整理
+     */
+    boolean needsCompact(int liveCount) {
+        return lines > Math.max(MIN_COMPACT_LINES, liveCount * 4);
+    }
+
+    /**
+     * 整理文件：只保留有效记录
+     * @param records 有效记录，每项为一行，不含换行
+     */
+    void compact(Collection<String> records) throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            for (String record : records) {
+                out.write(record);
+                out.write('\n');
+            }
+        }
+
+        writer.close();
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // 文件系统不支持原子替换
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        writer = openWriter();
+        lines = records.size();
+    }
+
+    /**
+     * 关闭文件
+     */
+    void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // 忽略异常
+        }
+        writer = null;
+    }
+
+    private Writer openWriter() throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+}
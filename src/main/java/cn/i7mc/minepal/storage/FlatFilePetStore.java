@@ -0,0 +1,149 @@
+package cn.i7mc.minepal.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * 追加写入的文件宠物存储
+ * 每次保存只在文件末尾追加本批次的写入和删除记录，不重写整个文件；打开时按顺序重放所有记录得到最新数据
+ * 文件中的记录数远多于有效数据时整理一次，把有效数据写入新文件后替换旧文件
+ */
+public class FlatFilePetStore implements PetStore {
+    // 记录类型
+    private static final String PUT = "P";
+    private static final String DELETE = "D";
+
+    private final AppendLog log;
+    private final Executor executor;
+    private final Logger logger;
+
+    // 以下字段只在I/O线程访问
+    private final Map<UUID, PetData> index = new HashMap<>();
+
+    public FlatFilePetStore(File file, Executor executor, Logger logger) {
+        this.log = new AppendLog(file);
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    @Override
+    public void open() throws IOException {
+        log.open(this::replay);
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, PetData>> loadAsync(Collection<UUID> owners) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<UUID, PetData> result = new HashMap<>();
+            for (UUID ownerUUID : owners) {
+                PetData data = index.get(ownerUUID);
+                if (data != null) {
+                    result.put(ownerUUID, data);
+                }
+            }
+            return result;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAll(Map<UUID, PetData> writes, Set<UUID> deletes) {
+        return CompletableFuture.runAsync(() -> {
+            if (!log.isOpen()) {
+                // 打开失败或已关闭，本批数据无法保存
+                logger.severe("无法写入宠物数据: 存储未打开，丢弃 " + (writes.size() + deletes.size()) + " 条记录");
+                return;
+            }
+            try {
+                StringBuilder batch = new StringBuilder();
+                int count = 0;
+                for (UUID ownerUUID : deletes) {
+                    if (index.remove(ownerUUID) != null) {
+                        batch.append(DELETE).append('\t').append(ownerUUID).append('\n');
+                        count++;
+                    }
+                }
+                for (PetData data : writes.values()) {
+                    index.put(data.getOwnerUUID(), data);
+                    batch.append(encode(data)).append('\n');
+                    count++;
+                }
+
+                if (count > 0) {
+                    log.append(batch.toString(), count);
+                }
+
+                if (log.needsCompact(index.size())) {
+                    // 整理文件：只保留有效数据
+                    List<String> records = new ArrayList<>(index.size());
+                    for (PetData data : index.values()) {
+                        records.add(encode(data));
+                    }
+                    log.compact(records);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.severe("无法写入宠物数据: " + e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+
+    @Override
+    public String getName() {
+        return "flat-file";
+    }
+
+    /**
+     * 重放一条记录
+     */
+    private void replay(String line) {
+        String[] parts = line.split("\t", -1);
+        try {
+            if (DELETE.equals(parts[0]) && parts.length >= 2) {
+                index.remove(UUID.fromString(parts[1]));
+            } else if (PUT.equals(parts[0]) && parts.length >= 6) {
+                UUID ownerUUID = UUID.fromString(parts[1]);
+                String template = decode(parts[2]);
+                if (template != null) {
+                    index.put(ownerUUID, new PetData(ownerUUID, template,
+                            Double.parseDouble(parts[3]), decode(parts[4]), parts[5]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // 忽略损坏的记录，例如写入中断留下的不完整行
+        }
+    }
+
+    /**
+     * 编码一条写入记录，文本字段使用Base64避免包含分隔符
+     */
+    private static String encode(PetData data) {
+        return PUT + '\t' + data.getOwnerUUID() + '\t' + encode(data.getTemplate()) + '\t' + data.getHealth()
+                + '\t' + encode(data.getCustomName()) + '\t' + data.getAiMode();
+    }
+
+    private static String encode(String value) {
+        if (value == null) return "";
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        if (value.isEmpty()) return null;
+        return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
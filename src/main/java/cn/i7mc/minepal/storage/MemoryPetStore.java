@@ -0,0 +1,53 @@
+package cn.i7mc.minepal.storage;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存宠物存储
+ * 数据不写入磁盘，服务器重启后丢失；用于测试和基准测试，便于单独衡量存储路径的开销
+ */
+public class MemoryPetStore implements PetStore {
+    private final Map<UUID, PetData> data = new ConcurrentHashMap<>();
+
+    @Override
+    public void open() {
+        // 内存存储无需打开
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, PetData>> loadAsync(Collection<UUID> owners) {
+        Map<UUID, PetData> result = new HashMap<>();
+        for (UUID ownerUUID : owners) {
+            PetData pet = data.get(ownerUUID);
+            if (pet != null) {
+                result.put(ownerUUID, pet);
+            }
+        }
+        return CompletableFuture.completedFuture(result);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAll(Map<UUID, PetData> writes, Set<UUID> deletes) {
+        for (UUID ownerUUID : deletes) {
+            data.remove(ownerUUID);
+        }
+        data.putAll(writes);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void close() {
+        data.clear();
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+}
@@ -0,0 +1,63 @@
+package cn.i7mc.minepal.storage;
+
+import java.util.UUID;
+
+/**
+ * 玩家当前宠物的持久化数据
+ * 不可变对象，在主线程从宠物实体采集后交给I/O线程写入
+ */
+public final class PetData {
+    private final UUID ownerUUID;
+    private final String template;
+    private final double health;
+    private final String customName;
+    private final String aiMode;
+
+    public PetData(UUID ownerUUID, String template, double health, String customName, String aiMode) {
+        this.ownerUUID = ownerUUID;
+        this.template = template;
+        this.health = health;
+        this.customName = customName;
+        this.aiMode = aiMode;
+    }
+
+    /**
+     * 获取主人UUID
+     * @return 主人UUID
+     */
+    public UUID getOwnerUUID() {
+        return ownerUUID;
+    }
+
+    /**
+     * 获取宠物模板名称
+     * @return 模板名称
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * 获取宠物生命值
+     * @return 生命值
+     */
+    public double getHealth() {
+        return health;
+    }
+
+    /**
+     * 获取宠物原始名称（不含主人前缀）
+     * @return 名称，可能为null
+     */
+    public String getCustomName() {
+        return customName;
+    }
+
+    /**
+     * 获取宠物AI状态名称
+     * @return AI状态名称
+     */
+    public String getAiMode() {
+        return aiMode;
+    }
+}
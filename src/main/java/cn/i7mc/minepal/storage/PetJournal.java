@@ -0,0 +1,219 @@
+package cn.i7mc.minepal.storage;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.pet.control.PetOrphanSweeper;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.EntitiesLoadEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 宠物实体日志
+ * 宠物实体生成和移除时在文件末尾追加一条记录，服务器崩溃后日志中仍标记为存活的宠物就是残留实体；
+ * 启动时只回收这些确切的实体UUID：已加载的实体立即交给残留宠物清扫器，其余的在所在区块加载时再交给清扫器，不需要扫描全世界的实体
+ * 文件中的记录数远多于存活实体时整理一次，把存活记录写入新文件后替换旧文件
+ */
+public class PetJournal implements Listener {
+    // 记录类型
+    private static final String SPAWN = "S";
+    private static final String REMOVE = "R";
+    // 超过该时间仍未加载到的残留记录视为实体已不存在
+    private static final long ORPHAN_EXPIRY_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private final MinePal plugin;
+    private final AppendLog log;
+    private final Executor executor;
+    private final CompletableFuture<Void> opened = new CompletableFuture<>();
+
+    // 以下字段只在I/O线程访问
+    // 宠物UUID -> 生成记录
+    private final Map<UUID, String> live = new LinkedHashMap<>();
+
+    // 上次运行残留、等待回收的宠物UUID
+    private final Set<UUID> orphans = ConcurrentHashMap.newKeySet();
+
+    public PetJournal(MinePal plugin, File file, Executor executor) {
+        this.plugin = plugin;
+        this.log = new AppendLog(file);
+        this.executor = executor;
+    }
+
+    /**
+     * 打开日志：重放所有记录，把仍标记为存活的宠物加入待回收列表
+     * 在I/O线程调用
+     */
+    public void open() throws IOException {
+        try {
+            log.open(this::replay);
+
+            // 丢弃过期的残留记录
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<UUID, String>> iterator = live.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<UUID, String> entry = iterator.next();
+                if (now - spawnTime(entry.getValue()) > ORPHAN_EXPIRY_MILLIS) {
+                    iterator.remove();
+                }
+            }
+            orphans.addAll(live.keySet());
+
+            // 重放后总是整理一次，同时丢弃写入中断留下的不完整行
+            compact();
+        } finally {
+            opened.complete(null);
+        }
+    }
+
+    /**
+     * 关闭日志
+     * 在I/O线程调用，调用前所有已提交的记录都已写入
+     */
+    public void close() {
+        log.close();
+    }
+
+    /**
+     * 记录宠物实体生成
+     * @param petUUID 宠物实体UUID
+     * @param ownerUUID 主人UUID
+     */
+    public void recordSpawn(UUID petUUID, UUID ownerUUID) {
+        if (petUUID == null) return;
+        String line = SPAWN + '\t' + petUUID + '\t' + ownerUUID + '\t' + System.currentTimeMillis();
+        submit(() -> {
+            live.put(petUUID, line);
+            append(line);
+        });
+    }
+
+    /**
+     * 记录宠物实体移除
+     * @param petUUID 宠物实体UUID
+     */
+    public void recordRemove(UUID petUUID) {
+        if (petUUID == null) return;
+        submit(() -> {
+            if (live.remove(petUUID) != null) {
+                append(REMOVE + '\t' + petUUID);
+            }
+        });
+    }
+
+    /**
+     * 日志打开后把所有已加载的残留宠物交给清扫器移除，其余的等待所在区块加载
+     * 在主线程调用
+     */
+    public void recoverLoaded() {
+        opened.thenRun(() -> Bukkit.getScheduler().runTask(plugin, () -> {
+            int count = 0;
+            for (UUID petUUID : new ArrayList<>(orphans)) {
+                Entity entity = Bukkit.getEntity(petUUID);
+                if (entity != null && recover(entity)) {
+                    count++;
+                }
+            }
+            plugin.getServer().getConsoleSender().sendMessage(plugin.getMessageManager().format("plugin.pet-recovery",
+                    "%count%", String.valueOf(count),
+                    "%pending%", String.valueOf(orphans.size())));
+        }));
+    }
+
+    /**
+     * 区块实体加载时把其中的残留宠物交给清扫器移除
+     * 只比较实体UUID，没有待回收宠物时直接返回
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        if (orphans.isEmpty()) return;
+
+        for (Entity entity : event.getEntities()) {
+            if (orphans.contains(entity.getUniqueId())) {
+                recover(entity);
+            }
+        }
+    }
+
+    /**
+     * 把一个残留宠物加入清扫器的队列，由清扫器在时间预算内移除并记录
+     * @return 是否加入了队列
+     */
+    private boolean recover(Entity entity) {
+        UUID petUUID = entity.getUniqueId();
+        if (!orphans.remove(petUUID)) return false;
+        // 本次运行中重新登记的宠物不是残留实体
+        if (plugin.getPetRegistry().isPet(petUUID)) return false;
+
+        PetOrphanSweeper sweeper = plugin.getOrphanSweeper();
+        if (sweeper == null) return false;
+        sweeper.enqueue(entity);
+        return true;
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // I/O线程已关闭，忽略异常
+        }
+    }
+
+    /**
+     * 追加一条记录，必要时整理文件
+     */
+    private void append(String line) {
+        if (!log.isOpen()) return;
+        try {
+            log.append(line + '\n', 1);
+
+            if (log.needsCompact(live.size())) {
+                compact();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("无法写入宠物实体日志: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 整理文件：只保留存活记录
+     */
+    private void compact() throws IOException {
+        log.compact(live.values());
+    }
+
+    /**
+     * 重放一条记录
+     */
+    private void replay(String line) {
+        String[] parts = line.split("\t", -1);
+        try {
+            if (REMOVE.equals(parts[0]) && parts.length >= 2) {
+                live.remove(UUID.fromString(parts[1]));
+            } else if (SPAWN.equals(parts[0]) && parts.length >= 4) {
+                Long.parseLong(parts[3]);
+                live.put(UUID.fromString(parts[1]), line);
+            }
+        } catch (IllegalArgumentException e) {
+            // 忽略损坏的记录，例如写入中断留下的不完整行
+        }
+    }
+
+    private static long spawnTime(String line) {
+        return Long.parseLong(line.substring(line.lastIndexOf('\t') + 1));
+    }
+}
@@ -0,0 +1,270 @@
+package cn.i7mc.minepal.storage;
+
+import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.pet.control.PetRecord;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 宠物数据存储
+ * 记录每个玩家当前的宠物（模板、生命值、名称、AI状态），玩家重新进入服务器时自动恢复
+ * 主线程只负责标记需要保存的玩家并采集数据；读写都由PetStore后端在专用的I/O线程上执行，
+ * 每个保存间隔只写入有变化的记录，主线程不会因为磁盘读写而阻塞
+ */
+public class PetStorage implements Listener {
+    private final MinePal plugin;
+    private final ExecutorService ioExecutor;
+    private final PetStore store;
+    private final PetJournal journal;
+    private BukkitTask flushTask;
+
+    // 以下字段只在主线程访问
+    // 数据有变化、下次保存时需要重新采集的玩家
+    private final Set<UUID> dirty = new HashSet<>();
+    // 已采集但尚未提交的数据（例如玩家离线时宠物即将被移除）
+    private final Map<UUID, PetData> staged = new HashMap<>();
+    // 需要删除记录的玩家
+    private final Set<UUID> removed = new HashSet<>();
+
+    public PetStorage(MinePal plugin) {
+        this.plugin = plugin;
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MinePal-IO");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.store = createStore(plugin.getConfigManager().getSettings().getStorageType());
+        this.journal = new PetJournal(plugin, new File(new File(plugin.getDataFolder(), "data"), "journal.log"), ioExecutor);
+    }
+
+    /**
+     * 根据配置创建存储后端
+     * @param type 后端类型：flat-file、sqlite或memory
+     * @return 存储后端
+     */
+    private PetStore createStore(String type) {
+        File directory = new File(plugin.getDataFolder(), "data");
+        switch (type) {
+            case "sqlite":
+                return new SqlitePetStore(new File(directory, "pets.db"), ioExecutor, plugin.getLogger());
+            case "memory":
+                return new MemoryPetStore();
+            default:
+                return new FlatFilePetStore(new File(directory, "pets.log"), ioExecutor, plugin.getLogger());
+        }
+    }
+
+    /**
+     * 启动存储：在I/O线程打开宠物实体日志和存储后端，并按配置的间隔定期保存
+     */
+    public void start() {
+        ioExecutor.execute(() -> {
+            try {
+                journal.open();
+            } catch (IOException e) {
+                plugin.getLogger().severe("无法打开宠物实体日志: " + e.getMessage());
+            }
+            try {
+                store.open();
+            } catch (IOException e) {
+                plugin.getLogger().severe("无法打开宠物数据存储(" + store.getName() + "): " + e.getMessage());
+            }
+        });
+
+        int interval = plugin.getConfigManager().getSettings().getSaveInterval();
+        if (interval > 0) {
+            long ticks = interval * 20L;
+            flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, ticks, ticks);
+        }
+    }
+
+    /**
+     * 采集所有在线玩家的宠物并提交写入
+     * 插件关闭时必须在移除宠物实体之前调用
+     */
+    public void saveOnline() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            capture(player);
+        }
+        flush();
+    }
+
+    /**
+     * 关闭存储：提交最后一批写入并等待I/O线程完成
+     * 在移除宠物实体之后调用，使移除记录也能写入日志
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+
+        ioExecutor.execute(journal::close);
+        ioExecutor.execute(store::close);
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("宠物数据保存超时，部分数据可能未写入");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 标记玩家的宠物数据有变化，下次保存时重新采集
+     * @param ownerUUID 主人UUID
+     */
+    public void markDirty(UUID ownerUUID) {
+        if (ownerUUID == null) return;
+        dirty.add(ownerUUID);
+    }
+
+    /**
+     * 立即采集玩家当前宠物的数据，用于宠物即将被移除但需要保留记录的情况（例如玩家离线）
+     * @param player 玩家
+     */
+    public void capture(Player player) {
+        PetData data = snapshot(player.getUniqueId());
+        if (data != null) {
+            staged.put(player.getUniqueId(), data);
+            dirty.remove(player.getUniqueId());
+            removed.remove(player.getUniqueId());
+        }
+    }
+
+    /**
+     * 删除玩家的宠物记录，用于收回宠物或宠物死亡
+     * @param ownerUUID 主人UUID
+     */
+    public void forget(UUID ownerUUID) {
+        if (ownerUUID == null) return;
+        dirty.remove(ownerUUID);
+        staged.remove(ownerUUID);
+        removed.add(ownerUUID);
+    }
+
+    /**
+     * 采集所有有变化的记录并提交到I/O线程
+     */
+    public void flush() {
+        Map<UUID, PetData> batch = new HashMap<>(staged);
+        for (UUID ownerUUID : dirty) {
+            PetData data = snapshot(ownerUUID);
+            if (data != null) {
+                batch.put(ownerUUID, data);
+            }
+        }
+        Set<UUID> deletes = new HashSet<>(removed);
+        staged.clear();
+        dirty.clear();
+        removed.clear();
+
+        if (batch.isEmpty() && deletes.isEmpty()) return;
+
+        store.saveAll(batch, deletes);
+    }
+
+    /**
+     * 异步读取玩家的宠物记录
+     * @param ownerUUID 主人UUID
+     * @return 宠物数据，没有记录时为null
+     */
+    public CompletableFuture<PetData> load(UUID ownerUUID) {
+        return store.loadAsync(Collections.singleton(ownerUUID)).thenApply(result -> result.get(ownerUUID));
+    }
+
+    /**
+     * 恢复所有在线玩家的宠物，用于插件启动时
+     */
+    public void restoreOnline() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            restoreLater(player.getUniqueId());
+        }
+    }
+
+    /**
+     * 玩家进入服务器时恢复宠物
+     * @param event 玩家进入事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        restoreLater(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * 在I/O线程读取记录，读取完成后回到主线程加入召唤队列
+     */
+    private void restoreLater(UUID ownerUUID) {
+        // 尚未提交的变更比存储中的记录新：已删除的不恢复，已采集的直接使用
+        // 已提交的变更在I/O线程上排在之后的读取之前，读取时一定能看到
+        if (removed.contains(ownerUUID)) return;
+        PetData pending = staged.get(ownerUUID);
+        if (pending != null) {
+            restore(ownerUUID, pending);
+            return;
+        }
+
+        load(ownerUUID).thenAccept(data -> {
+            if (data == null || !plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> restore(ownerUUID, data));
+        });
+    }
+
+    /**
+     * 在主线程把宠物数据加入召唤队列
+     */
+    private void restore(UUID ownerUUID, PetData data) {
+        // 读取期间记录可能已被删除
+        if (removed.contains(ownerUUID)) return;
+        Player player = Bukkit.getPlayer(ownerUUID);
+        if (player == null || !player.isOnline() || plugin.getPetUtils().hasPet(player)) return;
+        plugin.getSpawnQueue().restore(player, data);
+    }
+
+    /**
+     * 在主线程采集玩家主宠物的当前数据
+     * @return 宠物数据，玩家没有宠物时为null
+     */
+    private PetData snapshot(UUID ownerUUID) {
+        UUID petUUID = plugin.getPetRegistry().getPrimaryPet(ownerUUID);
+        PetRecord record = plugin.getPetRegistry().get(petUUID);
+        if (record == null || record.getTemplate() == null) return null;
+
+        double health = 0.0;
+        Entity entity = plugin.getPetEntityIndex().get(petUUID);
+        if (entity instanceof LivingEntity) {
+            health = ((LivingEntity) entity).getHealth();
+        }
+        return new PetData(ownerUUID, record.getTemplate(), health, record.getBaseName(), record.getAIState().name());
+    }
+
+    /**
+     * 获取宠物实体日志
+     * @return 宠物实体日志
+     */
+    public PetJournal getJournal() {
+        return journal;
+    }
+}
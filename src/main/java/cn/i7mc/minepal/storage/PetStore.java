@@ -0,0 +1,49 @@
+package cn.i7mc.minepal.storage;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 宠物数据存储后端
+ * 所有方法都以批量方式读写，实现类在构造时传入的I/O执行器上完成实际的读写，调用方不会被阻塞；
+ * 同一个执行器上提交的操作按提交顺序执行
+ */
+public interface PetStore {
+    /**
+     * 打开存储，例如读取索引或建立数据库连接
+     * 在I/O线程调用
+     * @throws IOException 无法打开存储时抛出
+     */
+    void open() throws IOException;
+
+    /**
+     * 批量读取玩家的宠物数据
+     * @param owners 主人UUID列表
+     * @return 主人UUID -> 宠物数据，没有记录的玩家不包含在结果中
+     */
+    CompletableFuture<Map<UUID, PetData>> loadAsync(Collection<UUID> owners);
+
+    /**
+     * 批量写入和删除宠物数据
+     * @param writes 需要写入的记录
+     * @param deletes 需要删除记录的主人UUID
+     * @return 写入完成后完成
+     */
+    CompletableFuture<Void> saveAll(Map<UUID, PetData> writes, Set<UUID> deletes);
+
+    /**
+     * 关闭存储，释放文件句柄或数据库连接
+     * 在I/O线程调用，调用前所有已提交的写入都已完成
+     */
+    void close();
+
+    /**
+     * 获取存储后端名称，用于统计信息显示
+     * @return 后端名称
+     */
+    String getName();
+}
@@ -0,0 +1,149 @@
+package cn.i7mc.minepal.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * 嵌入式SQLite宠物存储
+ * 使用服务端自带的SQLite JDBC驱动，数据保存在插件目录下的本地数据库文件中；
+ * 每批写入和删除在同一个事务内完成，适合玩家数量较多的服务器
+ */
+public class SqlitePetStore implements PetStore {
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS minepal_pets ("
+            + "owner TEXT PRIMARY KEY, template TEXT NOT NULL, health REAL NOT NULL, name TEXT, ai_mode TEXT)";
+    private static final String SELECT = "SELECT template, health, name, ai_mode FROM minepal_pets WHERE owner = ?";
+    private static final String UPSERT = "INSERT OR REPLACE INTO minepal_pets (owner, template, health, name, ai_mode) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM minepal_pets WHERE owner = ?";
+
+    private final File file;
+    private final Executor executor;
+    private final Logger logger;
+
+    // 只在I/O线程访问
+    private Connection connection;
+
+    public SqlitePetStore(File file, Executor executor, Logger logger) {
+        this.file = file;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    @Override
+    public void open() throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute(CREATE_TABLE);
+            }
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new IOException("无法打开SQLite数据库: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, PetData>> loadAsync(Collection<UUID> owners) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<UUID, PetData> result = new HashMap<>();
+            if (connection == null) return result;
+
+            try (PreparedStatement statement = connection.prepareStatement(SELECT)) {
+                for (UUID ownerUUID : owners) {
+                    statement.setString(1, ownerUUID.toString());
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (resultSet.next()) {
+                            result.put(ownerUUID, new PetData(ownerUUID,
+                                    resultSet.getString(1),
+                                    resultSet.getDouble(2),
+                                    resultSet.getString(3),
+                                    resultSet.getString(4)));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                logger.severe("无法读取宠物数据: " + e.getMessage());
+            }
+            return result;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAll(Map<UUID, PetData> writes, Set<UUID> deletes) {
+        return CompletableFuture.runAsync(() -> {
+            if (connection == null) return;
+
+            try {
+                connection.setAutoCommit(false);
+                try (PreparedStatement delete = connection.prepareStatement(DELETE);
+                     PreparedStatement upsert = connection.prepareStatement(UPSERT)) {
+                    for (UUID ownerUUID : deletes) {
+                        delete.setString(1, ownerUUID.toString());
+                        delete.addBatch();
+                    }
+                    delete.executeBatch();
+
+                    for (PetData data : writes.values()) {
+                        upsert.setString(1, data.getOwnerUUID().toString());
+                        upsert.setString(2, data.getTemplate());
+                        upsert.setDouble(3, data.getHealth());
+                        upsert.setString(4, data.getCustomName());
+                        upsert.setString(5, data.getAiMode());
+                        upsert.addBatch();
+                    }
+                    upsert.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                logger.severe("无法写入宠物数据: " + e.getMessage());
+                try {
+                    connection.rollback();
+                } catch (SQLException ignored) {
+                    // 忽略异常
+                }
+            } finally {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                    // 忽略异常
+                }
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // 忽略异常
+        }
+        connection = null;
+    }
+
+    @Override
+    public String getName() {
+        return "sqlite";
+    }
+}
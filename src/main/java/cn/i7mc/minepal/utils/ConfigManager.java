@@ -12,6 +12,9 @@ import java.util.Map;
 public class ConfigManager {
     private final MinePal plugin;
     private final Map<String, FileConfiguration> configs = new HashMap<>();
+    // config.yml的类型化快照，加载失败时保留上一次的有效快照
+    private volatile PluginSettings settings = PluginSettings.defaults();
+    private volatile String lastError;
 
     public ConfigManager(MinePal plugin) {
         this.plugin = plugin;
@@ -23,6 +26,37 @@ public class ConfigManager {
     public void loadAllConfigs() {
         loadConfig("config.yml");
         loadConfig("message.yml");
+        buildSettings();
+    }
+
+    /**
+     * 根据config.yml构建类型化快照
+     * 配置有误时记录错误并保留上一次的有效快照
+     */
+    private void buildSettings() {
+        try {
+            settings = PluginSettings.from(getConfig("config.yml"));
+            lastError = null;
+        } catch (IllegalArgumentException e) {
+            lastError = e.getMessage();
+            plugin.getLogger().severe("config.yml 配置有误，继续使用上一次的有效配置: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取config.yml的类型化快照
+     * @return 配置快照
+     */
+    public PluginSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * 获取最近一次加载配置时的错误
+     * @return 错误信息，加载成功时为null
+     */
+    public String getLastError() {
+        return lastError;
     }
 
     /**
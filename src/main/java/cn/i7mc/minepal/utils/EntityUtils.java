@@ -1,18 +1,23 @@
 package cn.i7mc.minepal.utils;
 
 import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.pet.control.TargetPriority;
 import io.lumine.mythic.api.adapters.AbstractEntity;
 import io.lumine.mythic.bukkit.BukkitAdapter;
 import io.lumine.mythic.bukkit.MythicBukkit;
 import io.lumine.mythic.core.mobs.ActiveMob;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
 import org.bukkit.entity.*;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.Plugin;
 
 import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -23,6 +28,10 @@ public class EntityUtils {
     private static MinePal plugin;
     private static MessageManager messageManager;
     private static ConfigManager configManager;
+    // 宠物标记：主人UUID
+    private static NamespacedKey petOwnerKey;
+    // 宠物标记：宠物模板名称
+    private static NamespacedKey petTemplateKey;
 
     /**
      * 初始化工具类
@@ -30,6 +39,8 @@ public class EntityUtils {
      */
     public static void init(MinePal plugin) {
         EntityUtils.plugin = plugin;
+        EntityUtils.petOwnerKey = new NamespacedKey(plugin, "pet_owner");
+        EntityUtils.petTemplateKey = new NamespacedKey(plugin, "pet_template");
     }
 
     /**
@@ -43,8 +54,71 @@ public class EntityUtils {
         EntityUtils.configManager = configManager;
     }
 
+    /**
+     * 为宠物写入持久化标记，标记会随实体保存，重启后依然存在
+     * @param pet 宠物实体
+     * @param ownerUUID 主人UUID
+     * @param template 宠物模板名称
+     */
+    public static void tagPet(Entity pet, UUID ownerUUID, String template) {
+        if (pet == null || ownerUUID == null || petOwnerKey == null) {
+            return;
+        }
+        
+        PersistentDataContainer container = pet.getPersistentDataContainer();
+        container.set(petOwnerKey, PersistentDataType.STRING, ownerUUID.toString());
+        if (template != null) {
+            container.set(petTemplateKey, PersistentDataType.STRING, template);
+        }
+    }
+    
+    /**
+     * 检查实体是否带有MinePal宠物标记
+     * @param entity 要检查的实体
+     * @return 是否带有宠物标记
+     */
+    public static boolean hasPetTag(Entity entity) {
+        return entity != null && petOwnerKey != null
+                && entity.getPersistentDataContainer().has(petOwnerKey, PersistentDataType.STRING);
+    }
+    
+    /**
+     * 读取宠物标记中的主人UUID
+     * @param entity 宠物实体
+     * @return 主人UUID，如果没有标记或标记无效则返回null
+     */
+    public static UUID getTaggedOwner(Entity entity) {
+        if (entity == null || petOwnerKey == null) {
+            return null;
+        }
+        
+        String value = entity.getPersistentDataContainer().get(petOwnerKey, PersistentDataType.STRING);
+        if (value == null) {
+            return null;
+        }
+        
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 读取宠物标记中的模板名称
+     * @param entity 宠物实体
+     * @return 模板名称，如果没有标记则返回null
+     */
+    public static String getTaggedTemplate(Entity entity) {
+        if (entity == null || petTemplateKey == null) {
+            return null;
+        }
+        return entity.getPersistentDataContainer().get(petTemplateKey, PersistentDataType.STRING);
+    }
+
     /**
      * 检查实体是否为宠物
+     * 非宠物只需一次instanceof判断和一次标记查询即可排除，不会访问MythicMobs
      * @param entity 要检查的实体
      * @return 是否为宠物
      */
@@ -58,24 +132,8 @@ public class EntityUtils {
             return ((Tameable) entity).isTamed();
         }
         
-        // 检查是否是我们插件的MythicMobs宠物（根据元数据）
-        if (entity.hasMetadata("pet_owner") || entity.hasMetadata("owner")) {
-            return true;
-        }
-        
-        // 通过MythicMobs API检查是否是我们注册的宠物
-        if (MythicBukkit.inst() != null) {
-            try {
-                Optional<ActiveMob> mob = MythicBukkit.inst().getMobManager().getActiveMob(entity.getUniqueId());
-                if (mob.isPresent() && mob.get().getOwner() != null && mob.get().getOwner().isPresent()) {
-                    return true;
-                }
-            } catch (Exception e) {
-                // 忽略异常并继续检查
-            }
-        }
-        
-        return false;
+        // 检查MinePal宠物标记
+        return hasPetTag(entity);
     }
     
     /**
@@ -96,27 +154,10 @@ public class EntityUtils {
             }
         }
         
-        // 通过元数据获取主人UUID
-        if (entity.hasMetadata("pet_owner")) {
-            String ownerUUID = entity.getMetadata("pet_owner").get(0).asString();
-            return Bukkit.getPlayer(UUID.fromString(ownerUUID));
-        }
-        
-        if (entity.hasMetadata("owner")) {
-            String ownerUUID = entity.getMetadata("owner").get(0).asString();
-            return Bukkit.getPlayer(UUID.fromString(ownerUUID));
-        }
-        
-        // 通过MythicMobs API获取主人
-        if (MythicBukkit.inst() != null) {
-            try {
-                Optional<ActiveMob> mob = MythicBukkit.inst().getMobManager().getActiveMob(entity.getUniqueId());
-                if (mob.isPresent() && mob.get().getOwner() != null && mob.get().getOwner().isPresent()) {
-                    return Bukkit.getPlayer(mob.get().getOwner().get());
-                }
-            } catch (Exception e) {
-                // 忽略异常并继续检查
-            }
+        // 通过宠物标记获取主人
+        UUID ownerUUID = getTaggedOwner(entity);
+        if (ownerUUID != null) {
+            return Bukkit.getPlayer(ownerUUID);
         }
         
         return null;
@@ -154,6 +195,12 @@ public class EntityUtils {
     public static boolean isPlayerPet(Entity entity, Player player) {
         if (entity == null || player == null) return false;
         
+        // 优先检查宠物标记
+        UUID taggedOwner = getTaggedOwner(entity);
+        if (taggedOwner != null) {
+            return taggedOwner.equals(player.getUniqueId());
+        }
+        
         // 获取实体的主人
         Optional<AnimalTamer> owner = getPetOwnerOptional(entity);
         if (!owner.isPresent()) return false;
@@ -259,20 +306,16 @@ public class EntityUtils {
     
     /**
      * 传送宠物到主人位置
+     * 目标区块未加载时先异步加载，完成后再移动宠物
      * @param pet 宠物实体
      * @param owner 主人
-     * @return 是否成功传送
+     * @return 是否已发起传送
      */
     public static boolean teleportPetToOwner(Entity pet, Player owner) {
-        try {
-            if (pet == null || owner == null) {
-                return false;
-            }
-            
-            return pet.teleport(owner.getLocation());
-        } catch (Exception e) {
+        if (pet == null || owner == null) {
             return false;
         }
+        return teleportPet(pet, owner.getLocation());
     }
     
     /**
@@ -380,8 +423,11 @@ public class EntityUtils {
             }
         }
         
-        // 如果找到敌人，设置为宠物的目标
+        // 如果找到敌人，设置为宠物的目标，由仲裁器决定是否切换
         if (nearestEnemy != null) {
+            if (plugin != null && plugin.getTargetArbiter() != null && pet instanceof Mob) {
+                return plugin.getTargetArbiter().request((Mob) pet, nearestEnemy, TargetPriority.PROTECT_OWNER);
+            }
             return setTarget(pet, nearestEnemy);
         }
         
@@ -460,9 +506,10 @@ public class EntityUtils {
 
     /**
      * 传送宠物到指定位置
+     * 目标区块未加载时先异步加载，完成后再移动宠物；插件未初始化时直接传送
      * @param pet 宠物实体
      * @param location 目标位置
-     * @return 是否成功传送
+     * @return 是否已发起传送
      */
     public static boolean teleportPet(Entity pet, Location location) {
         if (pet == null || location == null) {
@@ -470,6 +517,10 @@ public class EntityUtils {
         }
         
         try {
+            if (plugin != null && plugin.getPetTeleporter() != null) {
+                CompletableFuture<Boolean> result = plugin.getPetTeleporter().teleport(pet, location);
+                return !result.isDone() || result.getNow(false);
+            }
             return pet.teleport(location);
         } catch (Exception e) {
             return false;
@@ -558,14 +609,12 @@ public class EntityUtils {
             return null;
         }
         
-        for (org.bukkit.World world : Bukkit.getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                if (entity.getUniqueId().equals(uuid)) {
-                    return entity;
-                }
-            }
+        // 优先查询宠物实体索引
+        if (plugin != null && plugin.getPetEntityIndex() != null && plugin.getPetEntityIndex().contains(uuid)) {
+            return plugin.getPetEntityIndex().get(uuid);
         }
         
-        return null;
+        // 非宠物实体使用Bukkit的UUID查找
+        return Bukkit.getEntity(uuid);
     }
 } 
\ No newline at end of file
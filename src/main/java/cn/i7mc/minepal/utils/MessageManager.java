@@ -1,17 +1,23 @@
 package cn.i7mc.minepal.utils;
 
 import cn.i7mc.minepal.MinePal;
-import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 public class MessageManager {
     private final MinePal plugin;
     private final ConfigManager configManager;
+    // 消息路径 -> 预编译模板，刷新时整体替换
+    private volatile Map<String, MessageTemplate> templates = Collections.emptyMap();
 
     public MessageManager(MinePal plugin, ConfigManager configManager) {
         this.plugin = plugin;
         this.configManager = configManager;
+        compileMessages();
     }
 
     /**
@@ -20,19 +26,52 @@ public class MessageManager {
      * @return 格式化后的消息
      */
     public String getMessage(String path) {
+        return format(path);
+    }
+
+    /**
+     * 获取消息并一次性替换占位符
+     * @param path 消息路径
+     * @param replacements 占位符和值交替排列，例如 "%pet_name%", name
+     * @return 格式化后的消息
+     */
+    public String format(String path, String... replacements) {
+        Map<String, MessageTemplate> current = templates;
+        MessageTemplate template = current.get(path);
+        if (template != null) {
+            return template.render(replacements);
+        }
+
+        // 消息不存在时返回错误提示
+        String errorPath = current.isEmpty() ? "error.message-file-not-found" : "error.message-not-found";
+        MessageTemplate error = current.get(errorPath);
+        return error != null ? error.render("%path%", path) : path;
+    }
+
+    /**
+     * 编译消息文件中的所有消息
+     */
+    private void compileMessages() {
         FileConfiguration messageConfig = configManager.getConfig("message.yml");
         if (messageConfig == null) {
-            return ChatColor.translateAlternateColorCodes('&', 
-                getMessage("error.message-file-not-found").replace("%path%", path));
+            templates = Collections.emptyMap();
+            return;
+        }
+
+        ConfigurationSection section = messageConfig.getConfigurationSection("messages");
+        if (section == null) {
+            templates = Collections.emptyMap();
+            return;
         }
-        
-        String message = messageConfig.getString("messages." + path);
-        if (message == null) {
-            return ChatColor.translateAlternateColorCodes('&', 
-                getMessage("error.message-not-found").replace("%path%", path));
+
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        for (String key : section.getKeys(true)) {
+            String message = section.getString(key);
+            if (message != null && !section.isConfigurationSection(key)) {
+                compiled.put(key, MessageTemplate.compile(message));
+            }
         }
-        
-        return ChatColor.translateAlternateColorCodes('&', message);
+        templates = Collections.unmodifiableMap(compiled);
     }
     
     /**
@@ -69,6 +108,7 @@ public class MessageManager {
     public void refreshMessages() {
         // 重新加载消息配置文件
         configManager.loadConfig("message.yml");
+        compileMessages();
     }
 
     /**
@@ -0,0 +1,129 @@
+package cn.i7mc.minepal.utils;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预编译的消息模板
+ * 加载消息文件时处理颜色代码，并把文本拆分为固定片段和占位符（%name% 或 {name}），
+ * 占位符按名称分配序号，渲染时按序号取值，一次拼接出最终消息
+ */
+public final class MessageTemplate {
+    // 固定片段，数量比slots多一个
+    private final String[] texts;
+    // 每个占位符位置对应的占位符序号
+    private final int[] slots;
+    // 按序号排列的占位符名称（包含两侧的分隔符）
+    private final List<String> placeholders;
+    // 不含占位符时的完整消息
+    private final String plain;
+
+    private MessageTemplate(String[] texts, int[] slots, List<String> placeholders) {
+        this.texts = texts;
+        this.slots = slots;
+        this.placeholders = Collections.unmodifiableList(placeholders);
+        this.plain = slots.length == 0 ? texts[0] : null;
+    }
+
+    /**
+     * 编译消息
+     * @param raw 消息文件中的原始文本
+     * @return 编译后的模板
+     */
+    public static MessageTemplate compile(String raw) {
+        String message = ChatColor.translateAlternateColorCodes('&', raw);
+
+        List<String> texts = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+
+        int textStart = 0;
+        int i = 0;
+        while (i < message.length()) {
+            int end = placeholderEnd(message, i);
+            if (end < 0) {
+                i++;
+                continue;
+            }
+
+            String name = message.substring(i, end);
+            int index = placeholders.indexOf(name);
+            if (index < 0) {
+                index = placeholders.size();
+                placeholders.add(name);
+            }
+
+            texts.add(message.substring(textStart, i));
+            slots.add(index);
+            textStart = end;
+            i = end;
+        }
+        texts.add(message.substring(textStart));
+
+        int[] slotArray = new int[slots.size()];
+        for (int j = 0; j < slotArray.length; j++) {
+            slotArray[j] = slots.get(j);
+        }
+        return new MessageTemplate(texts.toArray(new String[0]), slotArray, placeholders);
+    }
+
+    /**
+     * 判断某个位置是否为占位符的开始，占位符名称只包含小写字母、数字和下划线
+     * @return 占位符结束位置（不含），不是占位符时返回-1
+     */
+    private static int placeholderEnd(String message, int start) {
+        char open = message.charAt(start);
+        char close;
+        if (open == '%') {
+            close = '%';
+        } else if (open == '{') {
+            close = '}';
+        } else {
+            return -1;
+        }
+
+        int i = start + 1;
+        while (i < message.length()) {
+            char c = message.charAt(i);
+            if (c == close) {
+                return i > start + 1 ? i + 1 : -1;
+            }
+            if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9') && c != '_') {
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * 渲染消息
+     * @param replacements 占位符和值交替排列，例如 "%pet_name%", name；未提供的占位符保持原样
+     * @return 最终消息
+     */
+    public String render(String... replacements) {
+        if (plain != null) {
+            return plain;
+        }
+
+        String[] values = new String[placeholders.size()];
+        for (int i = 0; i + 1 < replacements.length; i += 2) {
+            int index = placeholders.indexOf(replacements[i]);
+            if (index >= 0) {
+                values[index] = replacements[i + 1];
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(texts[0].length() + 16 * slots.length);
+        builder.append(texts[0]);
+        for (int i = 0; i < slots.length; i++) {
+            String value = values[slots[i]];
+            builder.append(value != null ? value : placeholders.get(slots[i]));
+            builder.append(texts[i + 1]);
+        }
+        return builder.toString();
+    }
+}
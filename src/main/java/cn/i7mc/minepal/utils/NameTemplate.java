@@ -0,0 +1,170 @@
+package cn.i7mc.minepal.utils;
+
+import org.bukkit.ChatColor;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的宠物显示名称模板
+ * 加载配置时把display-name-format解析成文本片段和变量槽位的列表，颜色代码和固定变量在编译时处理，
+ * 渲染时只需按顺序拼接，不再逐个执行字符串替换
+ */
+public final class NameTemplate {
+    /**
+     * 变量槽位类型
+     */
+    enum Slot {
+        TEXT,
+        OWNER_NAME,
+        PET_TYPE,
+        PET_HEALTH,
+        PET_MAX_HEALTH,
+        OWNER_LEVEL
+    }
+
+    /**
+     * 模板片段，TEXT类型保存已处理颜色代码的文本
+     */
+    private static final class Token {
+        private final Slot slot;
+        private final String text;
+
+        private Token(Slot slot, String text) {
+            this.slot = slot;
+            this.text = text;
+        }
+    }
+
+    private final List<Token> tokens;
+    private final boolean dynamic;
+
+    private NameTemplate(List<Token> tokens) {
+        this.tokens = Collections.unmodifiableList(tokens);
+        boolean live = false;
+        for (Token token : tokens) {
+            if (token.slot == Slot.PET_HEALTH || token.slot == Slot.PET_MAX_HEALTH || token.slot == Slot.OWNER_LEVEL) {
+                live = true;
+                break;
+            }
+        }
+        this.dynamic = live;
+    }
+
+    /**
+     * 编译名称格式
+     * @param format 名称格式，例如 &a{owner_name}的
+     * @param variables 额外的变量映射，未内置的变量使用映射中的值作为固定文本
+     * @return 编译后的模板
+     */
+    public static NameTemplate compile(String format, Map<String, String> variables) {
+        List<Token> tokens = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < format.length()) {
+            char c = format.charAt(i);
+            int end = c == '{' ? format.indexOf('}', i) : -1;
+            if (end < 0) {
+                text.append(c);
+                i++;
+                continue;
+            }
+
+            String key = format.substring(i, end + 1);
+            Slot slot = slotOf(key);
+            if (slot != null) {
+                flushText(tokens, text);
+                tokens.add(new Token(slot, null));
+            } else if (variables.containsKey(key)) {
+                text.append(variables.get(key));
+            } else {
+                text.append(key);
+            }
+            i = end + 1;
+        }
+        flushText(tokens, text);
+        return new NameTemplate(tokens);
+    }
+
+    private static void flushText(List<Token> tokens, StringBuilder text) {
+        if (text.length() == 0) return;
+        tokens.add(new Token(Slot.TEXT, ChatColor.translateAlternateColorCodes('&', text.toString())));
+        text.setLength(0);
+    }
+
+    private static Slot slotOf(String key) {
+        switch (key) {
+            case "{owner_name}":
+                return Slot.OWNER_NAME;
+            case "{pet_type}":
+                return Slot.PET_TYPE;
+            case "{pet_health}":
+                return Slot.PET_HEALTH;
+            case "{pet_max_health}":
+                return Slot.PET_MAX_HEALTH;
+            case "{owner_level}":
+                return Slot.OWNER_LEVEL;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 模板是否包含随时间变化的变量（宠物生命值、主人等级）
+     * @return 是否需要定期刷新
+     */
+    public boolean isDynamic() {
+        return dynamic;
+    }
+
+    /**
+     * 渲染名称前缀
+     * @param owner 宠物主人
+     * @param petType 宠物类型
+     * @param pet 宠物实体
+     * @return 渲染结果
+     */
+    public String render(Player owner, String petType, LivingEntity pet) {
+        StringBuilder builder = new StringBuilder(32);
+        for (Token token : tokens) {
+            switch (token.slot) {
+                case TEXT:
+                    builder.append(token.text);
+                    break;
+                case OWNER_NAME:
+                    builder.append(owner.getName());
+                    break;
+                case PET_TYPE:
+                    builder.append(petType);
+                    break;
+                case PET_HEALTH:
+                    appendOneDecimal(builder, pet.getHealth());
+                    break;
+                case PET_MAX_HEALTH:
+                    appendOneDecimal(builder, pet.getMaxHealth());
+                    break;
+                case OWNER_LEVEL:
+                    builder.append(owner.getLevel());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 保留一位小数追加数值，与String.format("%.1f")结果一致
+     */
+    private static void appendOneDecimal(StringBuilder builder, double value) {
+        long scaled = Math.round(Math.abs(value) * 10.0);
+        if (value < 0 && scaled != 0) {
+            builder.append('-');
+        }
+        builder.append(scaled / 10).append('.').append(scaled % 10);
+    }
+}
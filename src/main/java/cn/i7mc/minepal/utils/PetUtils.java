@@ -1,11 +1,14 @@
 package cn.i7mc.minepal.utils;
 
 import cn.i7mc.minepal.MinePal;
+import cn.i7mc.minepal.pet.control.PetRecord;
+import cn.i7mc.minepal.pet.control.PetRegistry;
+import cn.i7mc.minepal.storage.PetJournal;
+import io.lumine.mythic.core.mobs.ActiveMob;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -13,11 +16,12 @@ import java.util.UUID;
  * 宠物相关工具类
  */
 public class PetUtils {
-    private static final Map<UUID, UUID> playerPets = new HashMap<>();
     private final MinePal plugin;
+    private final PetRegistry registry;
     
     public PetUtils(MinePal plugin) {
         this.plugin = plugin;
+        this.registry = plugin.getPetRegistry();
     }
     
     /**
@@ -26,22 +30,33 @@ public class PetUtils {
      * @return 宠物实体UUID，如果没有则返回null
      */
     public UUID getPetUUID(Player player) {
-        return playerPets.get(player.getUniqueId());
+        return registry.getPrimaryPet(player.getUniqueId());
     }
     
     /**
      * 注册玩家的宠物
      * @param player 玩家
      * @param pet 宠物实体
+     * @param template 宠物模板名称
+     * @param activeMob 宠物的ActiveMob句柄
+     * @return 宠物记录
      */
-    public void registerPet(Player player, Entity pet) {
+    public PetRecord registerPet(Player player, Entity pet, String template, ActiveMob activeMob) {
         // 检查玩家的宠物数量是否已达上限
         if (hasPet(player) && getMaxPetsPerPlayer() <= 1) {
             // 如果已有宠物且限制为1，先移除现有宠物
             removePetIfExists(player);
         }
         
-        playerPets.put(player.getUniqueId(), pet.getUniqueId());
+        PetRecord record = registry.register(player.getUniqueId(), pet.getUniqueId(), template, activeMob);
+        if (record != null) {
+            record.setTemplateId(plugin.getImmunityPolicies().idOf(template));
+            PetJournal journal = getJournal();
+            if (journal != null) {
+                journal.recordSpawn(pet.getUniqueId(), player.getUniqueId());
+            }
+        }
+        return record;
     }
     
     /**
@@ -55,11 +70,25 @@ public class PetUtils {
     }
     
     /**
-     * 注销玩家的宠物
-     * @param player 玩家
+     * 注销单个宠物
+     * @param petUUID 宠物实体UUID
+     * @return 宠物原主人的UUID，如果未注册则返回null
      */
-    public void unregisterPet(Player player) {
-        playerPets.remove(player.getUniqueId());
+    public UUID unregisterPet(UUID petUUID) {
+        PetRecord record = registry.unregisterPet(petUUID);
+        return record == null ? null : record.getOwnerUUID();
+    }
+    
+    /**
+     * 记录宠物实体已从世界中移除，只能在实体确实被移除或死亡后调用
+     * 实体未移除时保留日志中的存活记录，使崩溃后仍能回收该实体
+     * @param petUUID 宠物实体UUID
+     */
+    public void recordDespawn(UUID petUUID) {
+        PetJournal journal = getJournal();
+        if (journal != null) {
+            journal.recordRemove(petUUID);
+        }
     }
     
     /**
@@ -79,7 +108,7 @@ public class PetUtils {
      * @return 是否有宠物
      */
     public boolean hasPet(Player player) {
-        return playerPets.containsKey(player.getUniqueId());
+        return registry.hasPets(player.getUniqueId());
     }
     
     /**
@@ -87,7 +116,7 @@ public class PetUtils {
      * @return 宠物数量上限
      */
     public int getMaxPetsPerPlayer() {
-        return plugin.getConfigManager().getConfig("config.yml").getInt("settings.max-pets", 1);
+        return plugin.getConfigManager().getSettings().getMaxPets();
     }
     
     /**
@@ -96,14 +125,21 @@ public class PetUtils {
      */
     public Map<UUID, UUID> getAllPets() {
         // 返回一个副本，防止外部修改
-        return new HashMap<>(playerPets);
+        return registry.getPrimaryPets();
     }
     
     /**
      * 清空所有宠物注册信息
      */
     public void clearAllPets() {
-        playerPets.clear();
+        registry.clear();
+    }
+    
+    /**
+     * 获取宠物实体日志，数据存储尚未初始化时返回null
+     */
+    private PetJournal getJournal() {
+        return plugin.getPetStorage() == null ? null : plugin.getPetStorage().getJournal();
     }
     
     /**
@@ -115,15 +151,21 @@ public class PetUtils {
     public Player getOwnerByPet(Entity pet) {
         if (pet == null) return null;
         
-        // 遍历所有记录查找匹配的宠物UUID
-        for (Map.Entry<UUID, UUID> entry : playerPets.entrySet()) {
-            if (entry.getValue().equals(pet.getUniqueId())) {
-                // 找到匹配的玩家UUID
-                return plugin.getServer().getPlayer(entry.getKey());
-            }
-        }
+        // 通过反向映射查找主人
+        UUID ownerUUID = registry.getOwner(pet.getUniqueId());
+        if (ownerUUID == null) return null;
         
-        return null;
+        return plugin.getServer().getPlayer(ownerUUID);
+    }
+    
+    /**
+     * 根据宠物UUID查找主人UUID
+     * 
+     * @param petUUID 宠物实体UUID
+     * @return 主人UUID，如果不是已注册宠物则返回null
+     */
+    public UUID getOwnerUUID(UUID petUUID) {
+        return registry.getOwner(petUUID);
     }
     
     /**
@@ -139,16 +181,8 @@ public class PetUtils {
         UUID petUUID = getPetUUID(owner);
         if (petUUID == null) return null;
         
-        // 在所有世界中查找实体
-        for (org.bukkit.World world : plugin.getServer().getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                if (entity.getUniqueId().equals(petUUID)) {
-                    return entity;
-                }
-            }
-        }
-        
-        return null;
+        // 通过宠物实体索引查找
+        return plugin.getPetEntityIndex().get(petUUID);
     }
     
     /**
@@ -161,12 +195,6 @@ public class PetUtils {
         if (entity == null) return false;
         
         // 检查是否在宠物注册表中
-        for (UUID petUUID : playerPets.values()) {
-            if (entity.getUniqueId().equals(petUUID)) {
-                return true;
-            }
-        }
-        
-        return false;
+        return registry.isPet(entity.getUniqueId());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,119 @@
+package cn.i7mc.minepal.utils;
+
+import cn.i7mc.minepal.MinePal;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 玩家通知通道，用于战斗中可能高频触发的提示
+ * 同一玩家在去重窗口内收到的相同消息只发送第一条，其余只计数，窗口结束时合并为一条"(x12)"形式的汇总；
+ * 所有消息在每tick统一发送一次，避免横扫或范围攻击时每次命中都发送聊天数据包
+ */
+public class PlayerNotifier {
+    /**
+     * 某条消息在当前窗口内的发送状态
+     */
+    private static final class Entry {
+        private final long windowEnd;
+        private int count = 1;
+        private boolean sent;
+
+        private Entry(long windowEnd) {
+            this.windowEnd = windowEnd;
+        }
+    }
+
+    private final MinePal plugin;
+    // 玩家UUID -> (消息 -> 发送状态)
+    private final Map<UUID, Map<String, Entry>> channels = new HashMap<>();
+    private BukkitTask task;
+
+    public PlayerNotifier(MinePal plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 向玩家发送可合并的通知，消息在下一次刷新时发送
+     * @param player 玩家
+     * @param message 已格式化的消息
+     */
+    public void notify(Player player, String message) {
+        if (player == null || message == null) return;
+
+        Map<String, Entry> channel = channels.computeIfAbsent(player.getUniqueId(), k -> new LinkedHashMap<>());
+        Entry entry = channel.get(message);
+        if (entry == null) {
+            long window = plugin.getConfigManager().getSettings().getNotifyWindowMillis();
+            channel.put(message, new Entry(System.currentTimeMillis() + window));
+        } else {
+            entry.count++;
+        }
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, 1L, 1L);
+        }
+    }
+
+    /**
+     * 每tick刷新：发送新消息，并为已结束的窗口发送汇总
+     */
+    private void flush() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<UUID, Map<String, Entry>>> players = channels.entrySet().iterator();
+        while (players.hasNext()) {
+            Map.Entry<UUID, Map<String, Entry>> channel = players.next();
+            Player player = Bukkit.getPlayer(channel.getKey());
+            if (player == null || !player.isOnline()) {
+                players.remove();
+                continue;
+            }
+
+            Iterator<Map.Entry<String, Entry>> messages = channel.getValue().entrySet().iterator();
+            while (messages.hasNext()) {
+                Map.Entry<String, Entry> message = messages.next();
+                Entry entry = message.getValue();
+                if (!entry.sent) {
+                    player.sendMessage(message.getKey());
+                    entry.sent = true;
+                    continue;
+                }
+
+                if (now < entry.windowEnd) continue;
+
+                // 窗口结束，只有出现过重复时才发送汇总，汇总中的次数为窗口内的总次数
+                if (entry.count > 1) {
+                    player.sendMessage(plugin.getMessageManager().format("notify.repeated",
+                            "%message%", message.getKey(),
+                            "%count%", String.valueOf(entry.count)));
+                }
+                messages.remove();
+            }
+
+            if (channel.getValue().isEmpty()) {
+                players.remove();
+            }
+        }
+
+        if (channels.isEmpty()) {
+            stop();
+        }
+    }
+
+    /**
+     * 停止刷新任务并丢弃未发送的通知
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        channels.clear();
+    }
+}
@@ -0,0 +1,363 @@
+package cn.i7mc.minepal.utils;
+
+import cn.i7mc.minepal.listeners.TargetSelectionRule;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * config.yml的类型化快照
+ * 在加载和重载时一次性解析并校验所有配置项，之后调用方直接读取字段；快照不可变，可在任意线程读取
+ */
+public final class PluginSettings {
+    private final boolean debug;
+    private final int maxPets;
+    private final int saveInterval;
+    private final int reloadPetsPerTick;
+    private final long notifyWindowMillis;
+    private final long sweepBudgetNanos;
+    private final long despawnBudgetNanos;
+    private final int summonsPerTick;
+    private final long summonBudgetNanos;
+    private final String storageType;
+    private final double petTargetingRadius;
+    private final boolean autoProtectOwner;
+    private final boolean nameVariablesEnabled;
+    private final String displayNameFormat;
+    private final Map<String, String> nameVariables;
+    private final NameTemplate nameTemplate;
+    private final int nameRefreshInterval;
+    private final int aiPollInterval;
+    private final TargetSelectionRule targetSelection;
+    private final long arbiterMinDwellMillis;
+    private final double arbiterSwitchMargin;
+    private final List<String> immunityDamageCauses;
+    private final List<String> immunityPotionEffects;
+    private final List<String> immunityDamagerTypes;
+
+    private PluginSettings(ConfigurationSection config) {
+        this.debug = readBoolean(config, "debug", false);
+        this.maxPets = readInt(config, "settings.max-pets", 1, 1, Integer.MAX_VALUE);
+        this.saveInterval = readInt(config, "settings.save-interval", 300, 0, Integer.MAX_VALUE);
+        this.reloadPetsPerTick = readInt(config, "settings.reload-pets-per-tick", 10, 1, 1000);
+        this.notifyWindowMillis = readInt(config, "settings.notify-window-ms", 2000, 0, 60000);
+        this.sweepBudgetNanos = (long) (readDouble(config, "settings.sweep-budget-ms", 2.0, 0.1, 50.0) * 1_000_000L);
+        this.despawnBudgetNanos = (long) (readDouble(config, "settings.despawn-budget-ms", 2.0, 0.1, 50.0) * 1_000_000L);
+        this.summonsPerTick = readInt(config, "settings.summons-per-tick", 5, 1, 1000);
+        this.summonBudgetNanos = (long) (readDouble(config, "settings.summon-budget-ms", 5.0, 0.1, 50.0) * 1_000_000L);
+        this.storageType = readChoice(config, "storage.type", "flat-file", "flat-file", "sqlite", "memory");
+        this.petTargetingRadius = readDouble(config, "settings.pet-targeting-radius", 15.0, 0.0, 256.0);
+        this.autoProtectOwner = readBoolean(config, "pet.auto-protect-owner", true);
+        this.nameVariablesEnabled = readBoolean(config, "pets.name-variables-enabled", true);
+        this.displayNameFormat = readString(config, "pets.display-name-format", "&a{owner_name}的");
+        this.nameVariables = readStringMap(config, "pets.name-variables");
+        this.nameTemplate = NameTemplate.compile(displayNameFormat, nameVariables);
+        this.nameRefreshInterval = readInt(config, "pets.name-refresh-interval", 20, 1, 1200);
+        this.aiPollInterval = readInt(config, "ai.poll-interval", 100, 1, 12000);
+        this.targetSelection = readRule(config, "ai.target-selection", TargetSelectionRule.LAST_HIT);
+        this.arbiterMinDwellMillis = readInt(config, "ai.target-arbiter.min-dwell-ms", 1500, 0, 600000);
+        this.arbiterSwitchMargin = readDouble(config, "ai.target-arbiter.switch-margin", 0.25, 0.0, 0.95);
+        this.immunityDamageCauses = readStringList(config, "immunity.damage-causes");
+        this.immunityPotionEffects = readStringList(config, "immunity.potion-effects");
+        this.immunityDamagerTypes = readStringList(config, "immunity.damager-types");
+    }
+
+    /**
+     * 从配置文件构建快照
+     * @param config config.yml配置
+     * @return 配置快照
+     * @throws IllegalArgumentException 配置项类型错误或超出范围时抛出，信息中包含配置路径
+     */
+    public static PluginSettings from(ConfigurationSection config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config.yml 未加载");
+        }
+        return new PluginSettings(config);
+    }
+
+    /**
+     * 构建全部使用默认值的快照，用于首次加载失败时
+     * @return 默认配置快照
+     */
+    public static PluginSettings defaults() {
+        return new PluginSettings(null);
+    }
+
+    private static boolean isSet(ConfigurationSection config, String path) {
+        return config != null && config.isSet(path);
+    }
+
+    private static boolean readBoolean(ConfigurationSection config, String path, boolean def) {
+        if (!isSet(config, path)) return def;
+        if (!config.isBoolean(path)) {
+            throw new IllegalArgumentException(path + " 必须是 true 或 false");
+        }
+        return config.getBoolean(path);
+    }
+
+    private static int readInt(ConfigurationSection config, String path, int def, int min, int max) {
+        if (!isSet(config, path)) return def;
+        if (!config.isInt(path)) {
+            throw new IllegalArgumentException(path + " 必须是整数");
+        }
+        int value = config.getInt(path);
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(path + " 必须在 " + min + " 到 " + max + " 之间");
+        }
+        return value;
+    }
+
+    private static double readDouble(ConfigurationSection config, String path, double def, double min, double max) {
+        if (!isSet(config, path)) return def;
+        if (!(config.get(path) instanceof Number)) {
+            throw new IllegalArgumentException(path + " 必须是数字");
+        }
+        double value = ((Number) config.get(path)).doubleValue();
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(path + " 必须在 " + min + " 到 " + max + " 之间");
+        }
+        return value;
+    }
+
+    private static String readString(ConfigurationSection config, String path, String def) {
+        if (!isSet(config, path)) return def;
+        if (!config.isString(path)) {
+            throw new IllegalArgumentException(path + " 必须是字符串");
+        }
+        return config.getString(path);
+    }
+
+    private static List<String> readStringList(ConfigurationSection config, String path) {
+        if (!isSet(config, path)) return Collections.emptyList();
+        if (!config.isList(path)) {
+            throw new IllegalArgumentException(path + " 必须是列表");
+        }
+        return Collections.unmodifiableList(config.getStringList(path));
+    }
+
+    private static Map<String, String> readStringMap(ConfigurationSection config, String path) {
+        if (!isSet(config, path)) return Collections.emptyMap();
+        if (!config.isConfigurationSection(path)) {
+            throw new IllegalArgumentException(path + " 必须是键值映射");
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        ConfigurationSection section = config.getConfigurationSection(path);
+        for (String key : section.getKeys(false)) {
+            result.put(key, section.getString(key, ""));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String readChoice(ConfigurationSection config, String path, String def, String... choices) {
+        String value = readString(config, path, def).trim().toLowerCase();
+        for (String choice : choices) {
+            if (choice.equals(value)) return value;
+        }
+        throw new IllegalArgumentException(path + " 必须是 " + String.join("、", choices) + " 之一");
+    }
+
+    private static TargetSelectionRule readRule(ConfigurationSection config, String path, TargetSelectionRule def) {
+        String value = readString(config, path, null);
+        if (value == null) return def;
+        try {
+            return TargetSelectionRule.valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(path + " 必须是 last-hit、most-damage 或 closest");
+        }
+    }
+
+    /**
+     * 是否启用调试模式
+     * @return 是否启用
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * 每个玩家的宠物数量上限
+     * @return 上限
+     */
+    public int getMaxPets() {
+        return maxPets;
+    }
+
+    /**
+     * 数据保存间隔
+     * @return 间隔（秒）
+     */
+    public int getSaveInterval() {
+        return saveInterval;
+    }
+
+    /**
+     * 重载时每tick处理的宠物数量
+     * @return 宠物数量
+     */
+    public int getReloadPetsPerTick() {
+        return reloadPetsPerTick;
+    }
+
+    /**
+     * 相同战斗提示的去重窗口
+     * @return 窗口长度（毫秒）
+     */
+    public long getNotifyWindowMillis() {
+        return notifyWindowMillis;
+    }
+
+    /**
+     * 残留宠物清扫每tick可用的时间
+     * @return 时间（纳秒）
+     */
+    public long getSweepBudgetNanos() {
+        return sweepBudgetNanos;
+    }
+
+    /**
+     * 批量移除宠物每tick可用的时间
+     * @return 时间（纳秒）
+     */
+    public long getDespawnBudgetNanos() {
+        return despawnBudgetNanos;
+    }
+
+    /**
+     * 每tick最多放行的召唤请求数量
+     * @return 请求数量
+     */
+    public int getSummonsPerTick() {
+        return summonsPerTick;
+    }
+
+    /**
+     * 召唤队列每tick可用的时间
+     * @return 时间（纳秒）
+     */
+    public long getSummonBudgetNanos() {
+        return summonBudgetNanos;
+    }
+
+    /**
+     * 宠物数据存储后端
+     * @return flat-file、sqlite或memory
+     */
+    public String getStorageType() {
+        return storageType;
+    }
+
+    /**
+     * 宠物寻找目标的半径
+     * @return 半径（格）
+     */
+    public double getPetTargetingRadius() {
+        return petTargetingRadius;
+    }
+
+    /**
+     * 宠物是否自动保护主人
+     * @return 是否启用
+     */
+    public boolean isAutoProtectOwner() {
+        return autoProtectOwner;
+    }
+
+    /**
+     * 是否启用名称变量替换
+     * @return 是否启用
+     */
+    public boolean isNameVariablesEnabled() {
+        return nameVariablesEnabled;
+    }
+
+    /**
+     * 宠物显示名称格式
+     * @return 名称格式
+     */
+    public String getDisplayNameFormat() {
+        return displayNameFormat;
+    }
+
+    /**
+     * 额外的名称变量映射
+     * @return 变量到描述的映射（不可变）
+     */
+    public Map<String, String> getNameVariables() {
+        return nameVariables;
+    }
+
+    /**
+     * 预编译的显示名称模板
+     * @return 名称模板
+     */
+    public NameTemplate getNameTemplate() {
+        return nameTemplate;
+    }
+
+    /**
+     * 动态名称的刷新间隔
+     * @return 间隔（tick）
+     */
+    public int getNameRefreshInterval() {
+        return nameRefreshInterval;
+    }
+
+    /**
+     * AI兜底轮询间隔
+     * @return 间隔（tick）
+     */
+    public int getAiPollInterval() {
+        return aiPollInterval;
+    }
+
+    /**
+     * 同一tick内多个候选目标的选择规则
+     * @return 选择规则
+     */
+    public TargetSelectionRule getTargetSelection() {
+        return targetSelection;
+    }
+
+    /**
+     * 目标仲裁的最短保持时间
+     * @return 时间（毫秒）
+     */
+    public long getArbiterMinDwellMillis() {
+        return arbiterMinDwellMillis;
+    }
+
+    /**
+     * 目标仲裁的切换阈值
+     * @return 比例
+     */
+    public double getArbiterSwitchMargin() {
+        return arbiterSwitchMargin;
+    }
+
+    /**
+     * 默认免疫的伤害类型
+     * @return 伤害类型名称列表（不可变）
+     */
+    public List<String> getImmunityDamageCauses() {
+        return immunityDamageCauses;
+    }
+
+    /**
+     * 默认免疫的药水效果
+     * @return 药水效果名称列表（不可变）
+     */
+    public List<String> getImmunityPotionEffects() {
+        return immunityPotionEffects;
+    }
+
+    /**
+     * 默认免疫其伤害的实体类型
+     * @return 实体类型名称列表（不可变）
+     */
+    public List<String> getImmunityDamagerTypes() {
+        return immunityDamagerTypes;
+    }
+}